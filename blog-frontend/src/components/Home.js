@@ -196,7 +196,7 @@ const ArticleCard = ({ article }) => {
               overflow: 'hidden'
             }}
           >
-            {article.content ? article.content.substring(0, 150) + '...' : 'No content available'}
+            {article.excerpt ? article.excerpt.substring(0, 150) + '...' : 'No content available'}
           </Typography>
         </CardContent>
       </CardActionArea>
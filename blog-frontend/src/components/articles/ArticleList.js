@@ -603,7 +603,7 @@ const ArticleList = () => {
                           lineHeight: '1.2em'
                         }}
                       >
-                        {article.content && article.content.substring(0, 150)}...
+                        {article.excerpt && article.excerpt.substring(0, 150)}...
                       </Typography>
                     )}
                     {viewMode !== 'list' && (
@@ -621,7 +621,7 @@ const ArticleList = () => {
                           lineHeight: '1.2em'
                         }}
                       >
-                        {article.content && article.content.substring(0, 180)}...
+                        {article.excerpt && article.excerpt.substring(0, 180)}...
                       </Typography>
                     )}
                   </CardContent>
@@ -73,9 +73,9 @@ const CategoryDetail = () => {
                       {article.title}
                     </Typography>
                     <Typography variant="body2" color="text.secondary" sx={{ mt: 1 }}>
-                      {article.content.length > 150 
-                        ? `${article.content.substring(0, 150)}...` 
-                        : article.content}
+                      {article.excerpt.length > 150 
+                        ? `${article.excerpt.substring(0, 150)}...` 
+                        : article.excerpt}
                     </Typography>
                   </CardContent>
                   <CardActions>
@@ -75,8 +75,8 @@ export const AuthProvider = ({ children }) => {
       
       // Check if the validation explicitly failed
       if (userData && userData.valid === false) {
-        console.log('MFA validation failed with invalid code');
-        return { valid: false, message: 'Invalid verification code' };
+        console.log('MFA validation failed:', userData.message);
+        return { valid: false, message: userData.message || 'Invalid verification code' };
       }
       
       // If we have a token, it's successful regardless of the valid flag
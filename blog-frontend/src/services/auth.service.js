@@ -7,8 +7,9 @@ const API_URL = 'http://localhost:8080/api/auth/';
 // Configure axios with credentials
 axios.defaults.withCredentials = true;
 
-// Store username temporarily for MFA flow
+// Store username and pending session id temporarily for MFA flow
 let pendingMfaUsername = '';
+let pendingMfaSession = '';
 
 class AuthService {
   login(username, password, mfaCode = null) {
@@ -31,6 +32,7 @@ class AuthService {
         if (response.data && response.data.mfaRequired && !mfaCode) {
           // Store username for MFA validation
           pendingMfaUsername = username;
+          pendingMfaSession = response.data.tempToken || '';
           console.log('Stored pending MFA username:', pendingMfaUsername);
           
           return {
@@ -69,20 +71,25 @@ class AuthService {
       return Promise.reject(new Error('No username available for MFA validation'));
     }
     
+    if (!pendingMfaSession) {
+      console.error('No pending MFA session stored; the user must sign in again');
+      return Promise.reject(new Error('MFA session expired. Please sign in again.'));
+    }
+    
     // Clean the code, removing any spaces or dashes that the user might have added
     const formattedCode = code.replace(/\D/g, '');
     
     console.log(`Sending MFA validation for user: ${maskEmail(effectiveUsername)}, code length: ${formattedCode.length}`);
     
-    // Call the MFA validation endpoint
-    const requestBody = { username: effectiveUsername, code: formattedCode };
+    // Complete the pending sign-in; tokens are only issued against the session from login
+    const requestBody = { secret: pendingMfaSession, code: formattedCode };
     console.log('MFA validation request:', { 
       username: maskEmail(effectiveUsername), 
       code: formattedCode ? '******' : 'empty' 
     });
     
     return axios
-      .post('http://localhost:8080/api/mfa/validate', requestBody, {
+      .post(API_URL + 'verify-2fa', requestBody, {
         withCredentials: true,
         headers: {
           'Content-Type': 'application/json',
@@ -95,21 +102,22 @@ class AuthService {
         console.log('MFA validation data:', response.data);
         
         // If validation is successful and we got a token
-        // The server returns {valid: true, token: "...", roles: [...]}
-        if (response.data && response.data.token) {
+        // The server returns {accessToken: "...", username: "...", roles: [...]}
+        if (response.data && response.data.accessToken) {
           console.log('MFA validation successful, token received');
           
           // Store user info with token
           const userData = {
-            accessToken: response.data.token,
+            accessToken: response.data.accessToken,
             username: response.data.username || effectiveUsername,
             roles: response.data.roles || [],
             valid: true // Ensure the valid flag is set
           };
           localStorage.setItem('user', JSON.stringify(userData));
           
-          // Clear pending username after successful validation
+          // Clear pending username and session after successful validation
           pendingMfaUsername = '';
+          pendingMfaSession = '';
           
           return userData;
         } else if (response.data && response.data.valid === false) {
@@ -119,11 +127,19 @@ class AuthService {
           console.log('MFA validation response format unexpected:', response.data);
           return { 
             ...response.data,
-            valid: !!response.data.token // Set valid based on token presence
+            valid: !!response.data.accessToken // Set valid based on token presence
           };
         }
       })
       .catch(error => {
+        // Wrong code, or the pending session is gone (expired, too many wrong codes, locked)
+        if (error.response && error.response.status === 400 && error.response.data) {
+          const message = error.response.data.message || 'Invalid verification code';
+          if (message !== 'Invalid verification code') {
+            pendingMfaSession = '';
+          }
+          return { valid: false, message };
+        }
         console.error('MFA validation error details:', 
           error.response?.data || error.message);
         console.error('Full error object:', error);
@@ -149,6 +165,7 @@ class AuthService {
         console.log('Logout successful on server');
         localStorage.removeItem('user');
         pendingMfaUsername = '';
+        pendingMfaSession = '';
         return { success: true };
       })
       .catch(error => {
@@ -156,12 +173,14 @@ class AuthService {
         // Even if server logout fails, clear local data
         localStorage.removeItem('user');
         pendingMfaUsername = '';
+        pendingMfaSession = '';
         return { success: false, error: error.message };
       });
     } else {
       // No user to logout, just clear local data
       localStorage.removeItem('user');
       pendingMfaUsername = '';
+      pendingMfaSession = '';
       return Promise.resolve({ success: true });
     }
   }
@@ -0,0 +1,8 @@
+-- SHA-256 lookup keys for stored and blacklisted tokens.
+-- Existing rows are left with a NULL token_hash; TokenHashMigrationService fills
+-- them in batches when the application starts.
+ALTER TABLE user_tokens ADD COLUMN token_hash VARBINARY(32) NULL AFTER token;
+ALTER TABLE jwt_blacklist ADD COLUMN token_hash VARBINARY(32) NULL AFTER token;
+
+CREATE INDEX idx_user_tokens_token_hash ON user_tokens (token_hash);
+CREATE INDEX idx_jwt_blacklist_token_hash ON jwt_blacklist (token_hash);
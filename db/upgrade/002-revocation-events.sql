@@ -0,0 +1,11 @@
+-- Revocation events polled by every node when app.auth.revocation-bus=database
+CREATE TABLE revocation_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    username VARCHAR(255),
+    user_id BIGINT,
+    generation BIGINT,
+    token_hash VARCHAR(64),
+    origin_node VARCHAR(36) NOT NULL,
+    created_at DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6)
+);
@@ -0,0 +1,7 @@
+-- Failed-login counters shared by every node when app.auth.login-attempts.store=database
+CREATE TABLE login_attempts (
+    username VARCHAR(64) PRIMARY KEY,
+    attempts INT NOT NULL,
+    window_start_ms BIGINT NOT NULL,
+    locked_until_ms BIGINT NOT NULL
+);
@@ -0,0 +1,9 @@
+-- Sign-ins waiting for their TOTP code when app.auth.mfa.pending-sessions.store=database.
+-- Only the SHA-256 of the opaque session id is stored.
+CREATE TABLE mfa_pending_sessions (
+    id_hash VARCHAR(64) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    username VARCHAR(64) NOT NULL,
+    expires_at_ms BIGINT NOT NULL,
+    failed_attempts INT NOT NULL DEFAULT 0
+);
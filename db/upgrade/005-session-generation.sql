@@ -0,0 +1,8 @@
+-- Session generations for single-session enforcement.
+-- Every existing user starts at generation 0. Existing tokens keep a NULL
+-- generation and are treated as issued before generations existed.
+ALTER TABLE users ADD COLUMN session_generation BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_tokens ADD COLUMN session_generation BIGINT NULL;
+
+-- Background revocation blacklists a user's older tokens by username
+CREATE INDEX idx_user_tokens_username ON user_tokens (username);
@@ -0,0 +1,4 @@
+-- Keyset feeds seek on these keys instead of skipping offset rows
+CREATE INDEX idx_article_create_date_time_id ON article (create_date_time, id);
+CREATE INDEX idx_article_category_id_id ON article (category_id, id);
+CREATE INDEX idx_article_category_create_date_time_id ON article (category_id, create_date_time, id);
@@ -0,0 +1,2 @@
+-- MAX(update_date_time) behind the article list ETags
+CREATE INDEX idx_article_update_date_time ON article (update_date_time);
@@ -0,0 +1,87 @@
+package com.ali.benchmark;
+
+import com.ali.security.jwt.AuthTokenFilter;
+import com.ali.security.jwt.JwtUtils;
+import com.ali.security.jwt.TokenStateCache;
+import com.ali.security.services.UserDetailsCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of {@link AuthTokenFilter} for an authenticated API request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private AuthTokenFilter filter;
+
+    private TokenStateCache tokenStateCache;
+
+    private UserDetailsCache userDetailsCache;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        filter = BenchmarkContext.getBean(AuthTokenFilter.class);
+        tokenStateCache = BenchmarkContext.getBean(TokenStateCache.class);
+        userDetailsCache = BenchmarkContext.getBean(UserDetailsCache.class);
+        String token = BenchmarkContext.getBean(JwtUtils.class).generateJwtToken(BenchmarkContext.adminAuthentication());
+
+        request = new MockHttpServletRequest("GET", "/api/user/profile");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    /**
+     * Token state and user details served from the in-memory caches
+     */
+    @Benchmark
+    public void doFilterCached(Blackhole blackhole) throws Exception {
+        filter.doFilter(request, response, chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Every request goes to the database for the token state and the user
+     */
+    @Benchmark
+    public void doFilterUncached(Blackhole blackhole) throws Exception {
+        tokenStateCache.invalidateAll();
+        userDetailsCache.evictAll();
+        filter.doFilter(request, response, chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ali.benchmark;
+
+import com.ali.SpringBooApplication;
+import com.ali.security.services.UserDetailsImpl;
+import com.ali.security.services.UserDetailsServiceImpl;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Boots the application once per benchmark JVM against an in-memory H2 database.
+ * JMH forks a fresh JVM for every benchmark, so each one starts from an empty database
+ * containing only the default admin user.
+ */
+final class BenchmarkContext {
+
+    static final String USERNAME = "deiadmin";
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext start() {
+        if (context == null) {
+            context = SpringApplication.run(SpringBooApplication.class,
+                    "--spring.profiles.active=dev",
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:jmh;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.jpa.show-sql=false",
+                    // The filter benchmark reuses one response; a header per pass would pile up
+                    "--app.auth.timing-header.enabled=false",
+                    "--spring.jpa.properties.hibernate.show_sql=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.ali=WARN",
+                    "--logging.level.org.hibernate.SQL=WARN",
+                    "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                    "--logging.level.org.springframework.security=WARN",
+                    "--logging.level.org.springframework.web=WARN");
+        }
+        return context;
+    }
+
+    static synchronized void stop() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    static <T> T getBean(Class<T> type) {
+        return start().getBean(type);
+    }
+
+    /**
+     * Authentication for the default admin, as produced by a password login
+     */
+    static Authentication adminAuthentication() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) getBean(UserDetailsServiceImpl.class).loadUserByUsername(USERNAME);
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+}
@@ -0,0 +1,86 @@
+package com.ali.benchmark;
+
+import com.ali.security.jwt.JwtUtils;
+import com.ali.security.jwt.TokenStateCache;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation, validation and claims extraction in {@link JwtUtils}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+
+    private TokenStateCache tokenStateCache;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = BenchmarkContext.getBean(JwtUtils.class);
+        tokenStateCache = BenchmarkContext.getBean(TokenStateCache.class);
+        authentication = BenchmarkContext.adminAuthentication();
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    /**
+     * Full login token issue: revokes the previous session and stores the new token
+     */
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    /**
+     * Steady-state validation of a token whose state is cached
+     */
+    @Benchmark
+    public Claims validateAndGetClaimsCached() {
+        return jwtUtils.validateAndGetClaims(token);
+    }
+
+    /**
+     * Validation with an empty token state cache: blacklist check, token store lookup
+     * and signature verification on every call
+     */
+    @Benchmark
+    public Claims validateAndGetClaimsUncached() {
+        tokenStateCache.invalidateAll();
+        return jwtUtils.validateAndGetClaims(token);
+    }
+
+    /**
+     * Signature verification and claims parsing only
+     */
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+}
@@ -0,0 +1,49 @@
+package com.ali.benchmark;
+
+import com.ali.entity.User;
+import com.ali.repository.UserRepository;
+import com.ali.security.services.UserDetailsImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a loaded {@link User} to {@link UserDetailsImpl}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkContext.getBean(UserRepository.class)
+                .findByUsernameWithRoles(BenchmarkContext.USERNAME)
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stop();
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ali.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the @Scheduled background jobs (token usage flushing, expired token cleanup)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,12 +1,21 @@
 package com.ali.config;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.stream.Collectors;
+
 @EnableSwagger2
 @Configuration
 public class SwaggerConfig {
@@ -18,4 +27,36 @@ public class SwaggerConfig {
                 .apis(RequestHandlerSelectors.basePackage("com.ali.controller"))
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Springfox 3 cannot read handler mappings that use PathPatternParser, which the
+     * actuator endpoints do. Hide those mappings from springfox so startup doesn't fail.
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    List<RequestMappingInfoHandlerMapping> mappings = getHandlerMappings(bean);
+                    List<RequestMappingInfoHandlerMapping> supported = mappings.stream()
+                            .filter(mapping -> mapping.getPatternParser() == null)
+                            .collect(Collectors.toList());
+                    mappings.clear();
+                    mappings.addAll(supported);
+                }
+                return bean;
+            }
+
+            @SuppressWarnings("unchecked")
+            private List<RequestMappingInfoHandlerMapping> getHandlerMappings(Object bean) {
+                Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+                if (field == null) {
+                    throw new IllegalStateException("Springfox handlerMappings field not found");
+                }
+                ReflectionUtils.makeAccessible(field);
+                return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+            }
+        };
+    }
+}
@@ -5,6 +5,8 @@ import com.ali.entity.Role;
 import com.ali.payload.response.MessageResponse;
 import com.ali.repository.UserRepository;
 import com.ali.repository.RoleRepository;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
 import com.ali.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +36,9 @@ public class AdminUserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private RevocationBus revocationBus;
+
     // List all users
     @GetMapping("")
     public ResponseEntity<List<User>> getAllUsers() {
@@ -50,6 +55,7 @@ public class AdminUserController {
             return ResponseEntity.notFound().build();
         }
         User user = userOpt.get();
+        String previousUsername = user.getUsername();
         user.setUsername(updatedUser.getUsername());
         user.setEmail(updatedUser.getEmail());
         // Defensive role mapping using helper method
@@ -61,6 +67,10 @@ public class AdminUserController {
         user.setMfaEnabled(updatedUser.isMfaEnabled());
         user.setActive(updatedUser.isActive());
         userRepository.save(user);
+        revocationBus.publish(RevocationEvent.userChanged(previousUsername));
+        if (!previousUsername.equals(user.getUsername())) {
+            revocationBus.publish(RevocationEvent.userChanged(user.getUsername()));
+        }
         user.setPassword(null);
         return ResponseEntity.ok(user);
     }
@@ -92,6 +102,7 @@ public class AdminUserController {
         // Reset account creation time to extend expiry by 1 year from now
         user.setCreateDateTime(LocalDateTime.now());
         User savedUser = userRepository.save(user);
+        revocationBus.publish(RevocationEvent.userChanged(savedUser.getUsername()));
         
         // Log after save
         System.out.println("After reactivation - User ID: " + id + ", Active: " + savedUser.isActive() + ", CreateDateTime: " + savedUser.getCreateDateTime());
@@ -118,6 +129,7 @@ public class AdminUserController {
             User user = userOpt.get();
             user.setActive(false);
             userRepository.save(user);
+            revocationBus.publish(RevocationEvent.userChanged(user.getUsername()));
             return ResponseEntity.ok(new MessageResponse("User deactivated successfully"));
         }
         
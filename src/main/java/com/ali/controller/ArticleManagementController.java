@@ -1,6 +1,10 @@
 package com.ali.controller;
 
 import com.ali.dto.ArticleDTO;
+import com.ali.dto.ArticleListRevision;
+import com.ali.dto.ArticleRevision;
+import com.ali.dto.ArticleSummaryDTO;
+import com.ali.dto.CursorPage;
 import com.ali.service.ArticleService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,10 +12,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import javax.validation.Valid;
@@ -28,6 +36,11 @@ import javax.persistence.OptimisticLockException;
 public class ArticleManagementController {
     private static final Logger logger = LoggerFactory.getLogger(ArticleManagementController.class);
 
+    private static final int MAX_FEED_SIZE = 100;
+
+    // Browsers keep the response but revalidate it with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     ArticleService articleService;
 
@@ -76,7 +89,7 @@ public class ArticleManagementController {
     @GetMapping("")
     public ResponseEntity<?> getAllArticles(@RequestParam(required = false) String title) {
         try {
-            List<ArticleDTO> articleDTOList = articleService.getAllArticles(title);
+            List<ArticleSummaryDTO> articleDTOList = articleService.getAllArticles(title);
             return new ResponseEntity<>(articleDTOList, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error getting articles: {}", e.getMessage(), e);
@@ -96,19 +109,22 @@ public class ArticleManagementController {
 //    }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getArticleById(@PathVariable("id") Long id) {
+    public ResponseEntity<?> getArticleById(@PathVariable("id") Long id, ServletWebRequest webRequest) {
         try {
             logger.info("Fetching article with id: {}", id);
             
-            // First check if the article exists
-            boolean exists = articleService.existsById(id);
-            if (!exists) {
+            // First check if the article exists, reading only its version
+            ArticleRevision revision = articleService.getArticleRevision(id);
+            if (revision == null) {
                 logger.warn("Article with id {} not found", id);
                 return new ResponseEntity<>(
                     Collections.singletonMap("error", "Article not found with id: " + id), 
                     HttpStatus.NOT_FOUND
                 );
             }
+            if (notModified(webRequest, revision.getETag(), revision.getLastModified())) {
+                return null;
+            }
             
             ArticleDTO articleDTO = articleService.getArticleById(id);
             if (articleDTO == null) {
@@ -120,7 +136,7 @@ public class ArticleManagementController {
             }
             
             logger.info("Successfully retrieved article with id: {}, title: {}", id, articleDTO.getTitle());
-            return new ResponseEntity<>(articleDTO, HttpStatus.OK);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(articleDTO);
         } catch (Exception e) {
             logger.error("Error getting article by id {}: {}", id, e.getMessage(), e);
             return new ResponseEntity<>(
@@ -133,7 +149,7 @@ public class ArticleManagementController {
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<?> getArticleListByCategoryId(@PathVariable("categoryId") Long categoryId) {
         try {
-            List<ArticleDTO> articleDTOList = articleService.getArticleListByCategoryId(categoryId);
+            List<ArticleSummaryDTO> articleDTOList = articleService.getArticleListByCategoryId(categoryId);
             return new ResponseEntity<>(articleDTOList, HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error getting articles by category id {}: {}", categoryId, e.getMessage(), e);
@@ -217,10 +233,22 @@ public class ArticleManagementController {
             @RequestParam(required = false) String title,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(defaultValue = "true") boolean count,
+            ServletWebRequest webRequest) {
         
         try {
             logger.info("Fetching paged articles: title='{}', page={}, size={}, sort={}", title, page, size, sort);
+
+            // Validated by the set's count and newest update time; count=false stays count-free
+            // and so has no validator. No Last-Modified, as deletes do not move the newest time.
+            if (count) {
+                ArticleListRevision revision = articleService.getArticleListRevision(title);
+                String pageKey = "paged|" + title + "|" + page + "|" + size + "|" + sort;
+                if (notModified(webRequest, revision.getETag(pageKey), -1L)) {
+                    return null;
+                }
+            }
             
             // Parse sort parameter
             String[] sortParams = sort.split(",");
@@ -231,9 +259,14 @@ public class ArticleManagementController {
             Sort sortOrder = Sort.by(direction, sortField);
             
             Pageable pageable = PageRequest.of(page, size, sortOrder);
-            Page<ArticleDTO> articles = articleService.getAllArticlesPaged(title, pageable);
+            if (!count) {
+                // Skip the COUNT query; the slice still reports whether a next page exists
+                Slice<ArticleSummaryDTO> articles = articleService.getAllArticlesSliced(title, pageable);
+                return ResponseEntity.ok().cacheControl(REVALIDATE).body(articles);
+            }
+            Page<ArticleSummaryDTO> articles = articleService.getAllArticlesPaged(title, pageable);
             
-            return ResponseEntity.ok(articles);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(articles);
         } catch (Exception e) {
             logger.error("Error fetching paged articles: {}", e.getMessage(), e);
             return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), 
@@ -246,10 +279,20 @@ public class ArticleManagementController {
             @PathVariable("categoryId") Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id,desc") String sort) {
+            @RequestParam(defaultValue = "id,desc") String sort,
+            @RequestParam(defaultValue = "true") boolean count,
+            ServletWebRequest webRequest) {
         
         try {
              logger.info("Fetching paged articles for category {}: page={}, size={}, sort={}", categoryId, page, size, sort);
+
+            if (count) {
+                ArticleListRevision revision = articleService.getArticleListRevisionByCategoryId(categoryId);
+                String pageKey = "category|" + categoryId + "|" + page + "|" + size + "|" + sort;
+                if (notModified(webRequest, revision.getETag(pageKey), -1L)) {
+                    return null;
+                }
+            }
             
             // Parse sort parameter
             String[] sortParams = sort.split(",");
@@ -260,9 +303,13 @@ public class ArticleManagementController {
             Sort sortOrder = Sort.by(direction, sortField);
             
             Pageable pageable = PageRequest.of(page, size, sortOrder);
-            Page<ArticleDTO> articles = articleService.getArticleListByCategoryIdPaged(categoryId, pageable);
+            if (!count) {
+                Slice<ArticleSummaryDTO> articles = articleService.getArticleListByCategoryIdSliced(categoryId, pageable);
+                return ResponseEntity.ok().cacheControl(REVALIDATE).body(articles);
+            }
+            Page<ArticleSummaryDTO> articles = articleService.getArticleListByCategoryIdPaged(categoryId, pageable);
             
-            return ResponseEntity.ok(articles);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(articles);
         } catch (Exception e) {
             logger.error("Error fetching paged articles for category {}: {}", categoryId, e.getMessage(), e);
             return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), 
@@ -270,6 +317,65 @@ public class ArticleManagementController {
         }
     }
 
+    /**
+     * Keyset-paginated feed, newest first. Pass the returned nextCursor as {@code cursor}
+     * to get the following page; sort is {@code id} (default) or {@code createDateTime}.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getArticleFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        return feed(null, cursor, size, sort);
+    }
+
+    @GetMapping("/category/{categoryId}/feed")
+    public ResponseEntity<?> getArticleFeedByCategory(
+            @PathVariable("categoryId") Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort) {
+        return feed(categoryId, cursor, size, sort);
+    }
+
+    private ResponseEntity<?> feed(Long categoryId, String cursor, int size, String sort) {
+        boolean byCreateDateTime = "createDateTime".equals(sort);
+        if (!byCreateDateTime && !"id".equals(sort)) {
+            return new ResponseEntity<>(Collections.singletonMap("error", "Unsupported sort: " + sort),
+                                        HttpStatus.BAD_REQUEST);
+        }
+        if (size < 1 || size > MAX_FEED_SIZE) {
+            return new ResponseEntity<>(
+                Collections.singletonMap("error", "Size must be between 1 and " + MAX_FEED_SIZE),
+                HttpStatus.BAD_REQUEST
+            );
+        }
+
+        try {
+            logger.debug("Fetching article feed: category={}, size={}, sort={}", categoryId, size, sort);
+            CursorPage<ArticleSummaryDTO> articles = articleService.getArticleFeed(categoryId, cursor, size, byCreateDateTime);
+            return ResponseEntity.ok(articles);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error fetching article feed for category {}: {}", categoryId, e.getMessage(), e);
+            return new ResponseEntity<>(Collections.singletonMap("error", e.getMessage()), 
+                                        HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Answers If-None-Match / If-Modified-Since from the validators alone. On a match the
+     * 304 status and validator headers are already set and the handler returns no body.
+     */
+    private boolean notModified(ServletWebRequest webRequest, String etag, long lastModified) {
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+            return true;
+        }
+        return false;
+    }
+
     @GetMapping("/debug/{id}")
     public ResponseEntity<?> debugArticle(@PathVariable("id") Long id) {
         try {
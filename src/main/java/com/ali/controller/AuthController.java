@@ -9,13 +9,20 @@ import com.ali.entity.Role;
 import com.ali.entity.User;
 import com.ali.repository.RoleRepository;
 import com.ali.repository.UserRepository;
+import com.ali.security.attempts.LoginAttemptTracker;
 import com.ali.security.jwt.JwtUtils;
+import com.ali.security.mfa.MfaPendingSession;
+import com.ali.security.mfa.MfaPendingSessionStore;
+import com.ali.security.password.PasswordHashingCapacityException;
 import com.ali.security.services.UserDetailsImpl;
-import com.ali.service.MFAService;
+import com.ali.service.LoginResult;
+import com.ali.service.LoginService;
+import com.ali.service.TotpVerificationService;
 import com.ali.service.UserService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -39,7 +46,6 @@ import java.util.HashMap;
 import com.ali.payload.request.Verify2FARequest;
 import com.ali.payload.response.TempTokenResponse;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import org.springframework.http.HttpStatus;
 
@@ -49,9 +55,6 @@ import org.springframework.http.HttpStatus;
 public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
     
-    @Autowired
-    AuthenticationManager authenticationManager;
-
     @Autowired
     UserRepository userRepository;
 
@@ -68,39 +71,45 @@ public class AuthController {
     private UserService userService;
 
     @Autowired
-    private MFAService mfaService;
+    private TotpVerificationService totpVerificationService;
 
-    // In-memory failed login tracking
-    private static class FailedLoginInfo {
-        int attempts = 0;
-        long lockoutUntil = 0;
-    }
-    private static final ConcurrentHashMap<String, FailedLoginInfo> loginAttempts = new ConcurrentHashMap<>();
-    private static final int MAX_ATTEMPTS = 5;
-    private static final long LOCKOUT_DURATION_MS = TimeUnit.MINUTES.toMillis(10);
+    @Autowired
+    private LoginService loginService;
 
+    @Autowired
+    private LoginAttemptTracker loginAttemptTracker;
+
+    @Autowired
+    private MfaPendingSessionStore mfaPendingSessionStore;
+
+    @Timed(value = "auth.login", description = "Login request latency", percentiles = {0.5, 0.95, 0.99})
     @PostMapping("/signin")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         String username = loginRequest.getUsername();
-        FailedLoginInfo info = loginAttempts.computeIfAbsent(username, k -> new FailedLoginInfo());
-        long now = System.currentTimeMillis();
-        if (info.lockoutUntil > now) {
-            long minutesLeft = TimeUnit.MILLISECONDS.toMinutes(info.lockoutUntil - now) + 1;
+        long lockoutRemainingMs = loginAttemptTracker.getLockoutRemainingMs(username);
+        if (lockoutRemainingMs > 0) {
+            long minutesLeft = TimeUnit.MILLISECONDS.toMinutes(lockoutRemainingMs) + 1;
             return ResponseEntity.badRequest().body(new MessageResponse("Account is locked. Try again in " + minutesLeft + " minutes."));
         }
         try {
             logger.info("Authentication attempt for user: {}", username);
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(username, loginRequest.getPassword()));
+            LoginResult result = loginService.authenticate(username, loginRequest.getPassword());
+            if (!result.isSuccess()) {
+                throw new BadCredentialsException("Login failed: " + result.getStatus());
+            }
+            Authentication authentication = result.getAuthentication();
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-            User user = userService.findById(userDetails.getId());
-            // Reset failed attempts on success
-            loginAttempts.remove(username);
+            UserDetailsImpl userDetails = result.getUserDetails();
+            User user = result.getUser();
             if (user.isMfaEnabled()) {
-                String tempToken = jwtUtils.generateTempToken(userDetails);
+                // Failures are reset by /verify-2fa, so wrong codes add to the password failures
+                totpVerificationService.prime(user);
+                // Opaque id of a pending session; the client sends it back to /verify-2fa
+                String tempToken = mfaPendingSessionStore.create(userDetails.getId(), userDetails.getUsername()).getId();
                 return ResponseEntity.ok(new TempTokenResponse(tempToken, true));
             }
+            // Reset failed attempts on success
+            loginAttemptTracker.recordSuccess(username);
             String jwt = jwtUtils.generateJwtToken(authentication);
             List<String> roles = userDetails.getAuthorities().stream()
                     .map(item -> item.getAuthority())
@@ -112,16 +121,17 @@ public class AuthController {
                                                   roles);
             logger.info("Authentication successful for user: {}", username);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingCapacityException e) {
+            // Hashing pool saturated: answered with 503 by GlobalExceptionHandler
+            throw e;
         } catch (AuthenticationException e) {
             // Increment failed attempts
-            info.attempts++;
-            if (info.attempts >= MAX_ATTEMPTS) {
-                info.lockoutUntil = System.currentTimeMillis() + LOCKOUT_DURATION_MS;
-                info.attempts = 0; // reset attempts after lockout
-                logger.warn("User {} locked out for 10 minutes due to too many failed attempts", username);
-                return ResponseEntity.badRequest().body(new MessageResponse("Account is locked due to too many failed attempts. Try again in 10 minutes."));
+            if (loginAttemptTracker.recordFailure(username)) {
+                long minutes = TimeUnit.MILLISECONDS.toMinutes(loginAttemptTracker.getLockoutDurationMs());
+                logger.warn("User {} locked out for {} minutes due to too many failed attempts", username, minutes);
+                return ResponseEntity.badRequest().body(new MessageResponse("Account is locked due to too many failed attempts. Try again in " + minutes + " minutes."));
             }
-            logger.error("Authentication failed for user: {} ({} failed attempts)", username, info.attempts);
+            logger.error("Authentication failed for user: {}", username);
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Invalid username or password"));
         } catch (Exception e) {
             logger.error("Unexpected error during authentication for user: {}", username, e);
@@ -179,6 +189,8 @@ public class AuthController {
             
             logger.info("User registered successfully: {}", signUpRequest.getUsername());
             return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
+        } catch (PasswordHashingCapacityException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error during registration for user: {}", signUpRequest.getUsername(), e);
             return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
@@ -256,59 +268,57 @@ public class AuthController {
         }
     }
 
+    @Timed(value = "auth.login", description = "Login request latency", percentiles = {0.5, 0.95, 0.99})
     @PostMapping("/login")
     public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO loginRequest, HttpServletRequest request) {
         try {
             logger.info("Login attempt for user: {}", loginRequest.getUsername());
             
-            // Get the user from the repository
-            Optional<User> userOpt = userRepository.findByUsername(loginRequest.getUsername());
-            if (!userOpt.isPresent()) {
-                logger.warn("Login failed - User not found: {}", loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new LoginResponseDTO(false, "Invalid username or password", null, null, null));
-            }
-            
-            User user = userOpt.get();
-            logger.debug("Found user: {} with email: {}", user.getUsername(), user.getEmail());
-            
-            // Check if account is active
-            if (!user.isActive()) {
-                logger.warn("Login attempt for inactive account: {}", loginRequest.getUsername());
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new LoginResponseDTO(false, "Account is not active", null, null, null));
-            }
-            
-            // Check if account is expired
-            if (user.isAccountExpired()) {
-                logger.warn("Login attempt for expired account: {}", loginRequest.getUsername());
+            // Shared lockout with /signin, checked before touching the database
+            long lockoutRemainingMs = loginAttemptTracker.getLockoutRemainingMs(loginRequest.getUsername());
+            if (lockoutRemainingMs > 0) {
+                long minutesLeft = TimeUnit.MILLISECONDS.toMinutes(lockoutRemainingMs) + 1;
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new LoginResponseDTO(false, "Account has expired", null, null, null));
+                        .body(new LoginResponseDTO(false, "Account is locked. Try again in " + minutesLeft + " minutes.", null, null, null));
             }
             
-            // Check password
-            if (!encoder.matches(loginRequest.getPassword(), user.getPassword())) {
-                logger.warn("Login failed - Invalid password for user: {}", loginRequest.getUsername());
-                // Increment failed attempts
-                user.incrementFailedLoginAttempts();
-                userRepository.save(user);
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                        .body(new LoginResponseDTO(false, "Invalid username or password", null, null, null));
+            // One query for the user and roles; the row is only written if the failure counter changes
+            LoginResult result = loginService.authenticate(loginRequest.getUsername(), loginRequest.getPassword());
+            switch (result.getStatus()) {
+                case USER_NOT_FOUND:
+                    logger.warn("Login failed - User not found: {}", loginRequest.getUsername());
+                    loginAttemptTracker.recordFailure(loginRequest.getUsername());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(new LoginResponseDTO(false, "Invalid username or password", null, null, null));
+                case INACTIVE:
+                    logger.warn("Login attempt for inactive account: {}", loginRequest.getUsername());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(new LoginResponseDTO(false, "Account is not active", null, null, null));
+                case EXPIRED:
+                    logger.warn("Login attempt for expired account: {}", loginRequest.getUsername());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(new LoginResponseDTO(false, "Account has expired", null, null, null));
+                case BAD_CREDENTIALS:
+                    logger.warn("Login failed - Invalid password for user: {}", loginRequest.getUsername());
+                    loginAttemptTracker.recordFailure(loginRequest.getUsername());
+                    loginService.recordFailedPassword(result.getUser());
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                            .body(new LoginResponseDTO(false, "Invalid username or password", null, null, null));
+                default:
+                    break;
             }
             
-            // Reset failed login attempts on successful login
-            if (user.getFailedLoginAttempts() > 0) {
-                user.resetFailedLoginAttempts();
-                userRepository.save(user);
-            }
+            User user = result.getUser();
             
-            // Check if MFA is enabled and MFA code is required
+            // Check if MFA is enabled and MFA code is required; failures are only reset once
+            // the code is accepted, so wrong codes add to the password failures
             if (user.isMfaEnabled()) {
                 // If MFA code is provided, validate it
                 if (loginRequest.getMfaCode() != null && !loginRequest.getMfaCode().isEmpty()) {
-                    boolean validCode = mfaService.verifyCode(user.getMfaSecret(), loginRequest.getMfaCode());
+                    boolean validCode = totpVerificationService.verify(user, loginRequest.getMfaCode());
                     if (!validCode) {
                         logger.warn("Login failed - Invalid MFA code for user: {}", loginRequest.getUsername());
+                        loginAttemptTracker.recordFailure(loginRequest.getUsername());
                         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                                 .body(new LoginResponseDTO(false, "Invalid verification code", null, null, null));
                     }
@@ -317,20 +327,24 @@ public class AuthController {
                 } else {
                     // MFA code required but not provided
                     logger.info("MFA code required for user: {}", loginRequest.getUsername());
-                    return ResponseEntity.ok(new LoginResponseDTO(true, "MFA verification required", null, user.getUsername(), true));
+                    totpVerificationService.prime(user);
+                    LoginResponseDTO response = new LoginResponseDTO(true, "MFA verification required", null, user.getUsername(), true);
+                    // Opaque id of a pending session; the client sends it back to /verify-2fa
+                    response.setTempToken(mfaPendingSessionStore.create(user.getId(), user.getUsername()).getId());
+                    return ResponseEntity.ok(response);
                 }
             }
+            loginAttemptTracker.recordSuccess(loginRequest.getUsername());
             
-            // Create authentication token and set in security context
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+            // Set the authentication built from the already loaded user in the security context
+            Authentication authentication = result.getAuthentication();
             SecurityContextHolder.getContext().setAuthentication(authentication);
             
             // Generate JWT
             String token = jwtUtils.generateJwtToken(authentication);
             
             // Get user details and roles
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+            UserDetailsImpl userDetails = result.getUserDetails();
             List<String> roles = userDetails.getAuthorities().stream()
                     .map(item -> item.getAuthority())
                     .collect(Collectors.toList());
@@ -345,6 +359,8 @@ public class AuthController {
                     false, 
                     roles
             ));
+        } catch (PasswordHashingCapacityException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error during login for user: {}", loginRequest.getUsername(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -357,44 +373,63 @@ public class AuthController {
         String username = request.get("username");
         String code = request.get("code");
         
-        User user = userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        boolean isValid = mfaService.verifyCode(user.getMfaSecret(), code);
-        
         Map<String, Object> response = new HashMap<>();
-        response.put("valid", isValid);
+        if (username == null || username.isEmpty()) {
+            response.put("valid", false);
+            return ResponseEntity.badRequest().body(response);
+        }
+        // Wrong codes count as failed logins, so this cannot be used to guess codes without limit
+        if (loginAttemptTracker.getLockoutRemainingMs(username) > 0) {
+            response.put("valid", false);
+            response.put("message", "Account is locked");
+            return ResponseEntity.badRequest().body(response);
+        }
         
-        if (isValid) {
-            // Create authentication object
-            Authentication authentication = new UsernamePasswordAuthenticationToken(
-                    username, null, null);
-            
-            // Generate JWT token
-            String jwt = jwtUtils.generateJwtToken(authentication);
-            response.put("token", jwt);
+        // Served from the secret cache primed at sign-in; loads the user only on a miss.
+        // Only reports validity: tokens are issued by /verify-2fa against a pending session
+        boolean isValid = totpVerificationService.verify(username, code) != null;
+        if (!isValid) {
+            loginAttemptTracker.recordFailure(username);
         }
+        response.put("valid", isValid);
         
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/verify-2fa")
     public ResponseEntity<?> verify2FACode(@Valid @RequestBody Verify2FARequest request) {
-        String username = jwtUtils.getUserNameFromTempToken(request.getSecret());
-        User user = userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        MfaPendingSession session = mfaPendingSessionStore.find(request.getSecret());
+        if (session == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse("MFA session expired. Please sign in again."));
+        }
+        if (loginAttemptTracker.getLockoutRemainingMs(session.getUsername()) > 0) {
+            mfaPendingSessionStore.consume(request.getSecret());
+            return ResponseEntity.badRequest().body(new MessageResponse("Account is locked. Please sign in again later."));
+        }
 
-        if (mfaService.verifyCode(user.getMfaSecret(), request.getCode())) {
-            String jwt = jwtUtils.generateJwtTokenFromTempToken(request.getSecret());
+        UserDetailsImpl userDetails = totpVerificationService.verify(session.getUsername(), request.getCode());
+        // Consuming the session makes the id single-use even if the code is still valid
+        if (userDetails != null && mfaPendingSessionStore.consume(request.getSecret()) != null) {
+            loginAttemptTracker.recordSuccess(session.getUsername());
+            Authentication authentication = new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities());
+            String jwt = jwtUtils.generateJwtToken(authentication);
             return ResponseEntity.ok(new JwtResponse(jwt,
-                    user.getId(),
-                    user.getUsername(),
-                    user.getEmail(),
-                    user.getRoles().stream()
-                            .map(role -> role.getName().name())
+                    userDetails.getId(),
+                    userDetails.getUsername(),
+                    userDetails.getEmail(),
+                    userDetails.getAuthorities().stream()
+                            .map(item -> item.getAuthority())
                             .collect(Collectors.toList())));
         }
 
+        if (userDetails == null) {
+            // Counted per account too, so signing in again does not buy fresh guesses
+            loginAttemptTracker.recordFailure(session.getUsername());
+            if (mfaPendingSessionStore.recordFailure(request.getSecret())) {
+                return ResponseEntity.badRequest().body(new MessageResponse("Too many invalid codes. Please sign in again."));
+            }
+        }
         return ResponseEntity.badRequest().body(new MessageResponse("Invalid verification code"));
     }
 
@@ -406,12 +441,16 @@ public class AuthController {
         if (username == null || mfaCode == null || newPassword == null) {
             return ResponseEntity.badRequest().body(new MessageResponse("All fields are required"));
         }
+        if (loginAttemptTracker.getLockoutRemainingMs(username) > 0) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Account is locked. Try again later."));
+        }
         Optional<User> userOpt = userService.findByUsername(username);
         if (!userOpt.isPresent()) {
             return ResponseEntity.badRequest().body(new MessageResponse("User not found"));
         }
         User user = userOpt.get();
-        if (!user.isMfaEnabled() || !mfaService.verifyCode(user.getMfaSecret(), mfaCode)) {
+        if (!totpVerificationService.verify(user, mfaCode)) {
+            loginAttemptTracker.recordFailure(username);
             return ResponseEntity.badRequest().body(new MessageResponse("Invalid MFA code"));
         }
         userService.updatePassword(user, encoder.encode(newPassword));
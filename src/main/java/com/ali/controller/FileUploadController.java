@@ -138,14 +138,12 @@ public class FileUploadController {
                                 throw new Exception("Category name cannot be empty");
                             }
                             
-                            // Create a new category directly to avoid any lookup issues
-                            CategoryDTO newCategory = new CategoryDTO();
-                            newCategory.setTitle(categoryName);
-                            CategoryDTO categoryDTO = categoryService.createCategory(newCategory);
+                            // Reuse an existing category with this name, or create it
+                            CategoryDTO categoryDTO = categoryService.findByName(categoryName);
                             Long categoryId = categoryDTO.getId();
                             
                             article.setCategoryId(categoryId);
-                            logger.info("Created and mapped category '{}' to ID: {}", categoryName, categoryId);
+                            logger.info("Mapped category '{}' to ID: {}", categoryName, categoryId);
                         } catch (Exception e) {
                             String errorMsg = "Line " + lineNumber + ": Could not create category '" + categoryName + "': " + e.getMessage();
                             logger.error(errorMsg, e);
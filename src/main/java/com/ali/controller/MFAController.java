@@ -5,10 +5,15 @@ import com.ali.payload.request.Verify2FARequest;
 import com.ali.payload.response.Enable2FAResponse;
 import com.ali.payload.response.MessageResponse;
 import com.ali.security.jwt.JwtUtils;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
 import com.ali.security.services.UserDetailsImpl;
 import com.ali.service.MFAService;
 import com.ali.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,6 +33,9 @@ public class MFAController {
     @Autowired
     private JwtUtils jwtUtils;
 
+    @Autowired
+    private RevocationBus revocationBus;
+
     @GetMapping("/2fa-status")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> get2FAStatus(Authentication authentication) {
@@ -36,16 +44,51 @@ public class MFAController {
         return ResponseEntity.ok(mfaService.isMFAEnabled(user));
     }
 
+    /**
+     * Starts (or resumes) enrollment. The secret stays the same until it expires or MFA is
+     * enabled, so reloading the setup screen returns the cached QR image. {@code format=svg}
+     * returns a compact SVG data URI instead of a PNG one.
+     */
     @PostMapping("/generate-2fa-secret")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
-    public ResponseEntity<?> generate2FASecret(Authentication authentication) {
+    public ResponseEntity<?> generate2FASecret(@RequestParam(required = false) String format,
+                                               Authentication authentication) {
+        if (!mfaService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Unsupported QR code format: " + format));
+        }
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+
+        String secret = mfaService.getOrCreateEnrollmentSecret(userDetails.getId());
+        String qrCode = mfaService.getQrCodeDataUri(userDetails.getId(), secret, userDetails.getEmail(), format);
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new Enable2FAResponse(secret, qrCode));
+    }
+
+    /**
+     * The pending enrollment QR code as a raw image ({@code format=png} or {@code svg})
+     */
+    @GetMapping("/2fa-qr")
+    @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
+    public ResponseEntity<?> get2FAQrCode(@RequestParam(required = false) String format,
+                                          Authentication authentication) {
+        if (!mfaService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Unsupported QR code format: " + format));
+        }
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User user = userService.findById(userDetails.getId());
 
-        String secret = mfaService.generateSecret();
-        String qrCode = mfaService.generateQrCodeImageUri(secret, user.getEmail());
+        String secret = mfaService.getEnrollmentSecret(userDetails.getId());
+        if (secret == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new MessageResponse("No 2FA enrollment in progress"));
+        }
 
-        return ResponseEntity.ok(new Enable2FAResponse(secret, qrCode));
+        byte[] image = mfaService.getQrCodeImage(userDetails.getId(), secret, userDetails.getEmail(), format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(mfaService.getQrCodeMimeType(format)))
+                .cacheControl(CacheControl.noStore())
+                .body(image);
     }
 
     @PostMapping("/verify-2fa")
@@ -57,6 +100,9 @@ public class MFAController {
         if (mfaService.verifyCode(request.getSecret(), request.getCode())) {
             mfaService.enableMFA(user, request.getSecret());
             userService.save(user);
+            mfaService.clearEnrollment(user.getId());
+            // Drops any cached TOTP secret for this user on every node
+            revocationBus.publish(RevocationEvent.userChanged(user.getUsername()));
             return ResponseEntity.ok(new MessageResponse("2FA enabled successfully!"));
         }
 
@@ -71,6 +117,8 @@ public class MFAController {
 
         mfaService.disableMFA(user);
         userService.save(user);
+        mfaService.clearEnrollment(user.getId());
+        revocationBus.publish(RevocationEvent.userChanged(user.getUsername()));
 
         return ResponseEntity.ok(new MessageResponse("2FA disabled successfully!"));
     }
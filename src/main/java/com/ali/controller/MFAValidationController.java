@@ -3,22 +3,17 @@ package com.ali.controller;
 import com.ali.entity.User;
 import com.ali.payload.response.MessageResponse;
 import com.ali.repository.UserRepository;
-import com.ali.security.jwt.JwtUtils;
-import com.ali.security.services.UserDetailsImpl;
-import com.ali.service.MFAService;
+import com.ali.security.attempts.LoginAttemptTracker;
+import com.ali.service.TotpVerificationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller specifically for MFA validation functionality
@@ -35,15 +30,17 @@ public class MFAValidationController {
     private UserRepository userRepository;
 
     @Autowired
-    private MFAService mfaService;
+    private TotpVerificationService totpVerificationService;
 
     @Autowired
-    private JwtUtils jwtUtils;
+    private LoginAttemptTracker loginAttemptTracker;
 
     /**
-     * Validates an MFA code for a user
+     * Validates an MFA code for a user. Only reports validity: tokens are issued by
+     * /api/auth/verify-2fa against a pending session. Wrong codes count as failed
+     * logins, so the endpoint cannot be used to guess codes without limit.
      * @param request Contains username and verification code
-     * @return Response with validation result and token if valid
+     * @return Response with validation result
      */
     @PostMapping("/validate")
     public ResponseEntity<?> validateMfaCode(@RequestBody Map<String, String> request) {
@@ -66,53 +63,35 @@ public class MFAValidationController {
                     .body(new MessageResponse("Verification code is required"));
             }
             
-            // Find user
-            User user = userRepository.findByUsername(username)
-                    .orElseThrow(() -> {
-                        logger.error("MFA validation failed: User not found - {}", username);
-                        return new IllegalArgumentException("User not found");
-                    });
-            
-            // Check if user has MFA enabled
-            if (!user.isMfaEnabled()) {
-                logger.error("MFA validation failed: User does not have MFA enabled - {}", username);
+            long lockoutRemainingMs = loginAttemptTracker.getLockoutRemainingMs(username);
+            if (lockoutRemainingMs > 0) {
+                long minutesLeft = TimeUnit.MILLISECONDS.toMinutes(lockoutRemainingMs) + 1;
+                logger.warn("MFA validation rejected: Account locked - {}", username);
                 return ResponseEntity.badRequest()
-                    .body(new MessageResponse("MFA is not enabled for this user"));
+                    .body(new MessageResponse("Account is locked. Try again in " + minutesLeft + " minutes."));
             }
             
-            // Clean code
-            String cleanCode = code.replaceAll("[^0-9]", "");
-            logger.debug("MFA validation: cleaned code length - {}", cleanCode.length());
-            
-            // Verify code
-            boolean isValid = mfaService.verifyCode(user.getMfaSecret(), cleanCode);
+            // Fast path: secret and user details cached since sign-in
+            boolean isValid = totpVerificationService.verify(username, code) != null;
             
             Map<String, Object> response = new HashMap<>();
             response.put("valid", isValid);
             
             if (isValid) {
                 logger.info("MFA validation successful for user: {}", username);
-                
-                // Create authorities from user roles
-                List<SimpleGrantedAuthority> authorities = user.getRoles().stream()
-                    .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                    .collect(Collectors.toList());
-                
-                // Create UserDetailsImpl object for the user
-                UserDetailsImpl userDetails = UserDetailsImpl.build(user);
-                
-                // Create authentication object with UserDetailsImpl as the principal
-                Authentication authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, authorities);
-                
-                // Generate JWT token
-                String jwt = jwtUtils.generateJwtToken(authentication);
-                response.put("token", jwt);
-                response.put("username", user.getUsername());
-                response.put("roles", user.getRoles().stream()
-                        .map(role -> role.getName().name())
-                        .collect(Collectors.toList()));
             } else {
+                loginAttemptTracker.recordFailure(username);
+                // Only failures pay for a lookup, to report why
+                User user = userRepository.findByUsername(username)
+                        .orElseThrow(() -> {
+                            logger.error("MFA validation failed: User not found - {}", username);
+                            return new IllegalArgumentException("User not found");
+                        });
+                if (!user.isMfaEnabled()) {
+                    logger.error("MFA validation failed: User does not have MFA enabled - {}", username);
+                    return ResponseEntity.badRequest()
+                        .body(new MessageResponse("MFA is not enabled for this user"));
+                }
                 logger.warn("MFA validation failed: Invalid code for user - {}", username);
                 response.put("message", "Invalid verification code");
             }
@@ -4,6 +4,8 @@ import com.ali.entity.User;
 import com.ali.payload.request.UpdateProfileRequest;
 import com.ali.payload.response.MessageResponse;
 import com.ali.repository.UserRepository;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
 import com.ali.security.services.UserDetailsImpl;
 import com.ali.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +32,9 @@ public class UserController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RevocationBus revocationBus;
+
     @GetMapping("/profile")
     @PreAuthorize("hasRole('USER') or hasRole('MODERATOR') or hasRole('ADMIN')")
     public ResponseEntity<?> getUserProfile(Authentication authentication) {
@@ -77,10 +82,15 @@ public class UserController {
         }
         
         // Update user information
+        String previousUsername = currentUser.getUsername();
         currentUser.setUsername(updateRequest.getUsername());
         currentUser.setEmail(updateRequest.getEmail());
         
         userService.save(currentUser);
+        revocationBus.publish(RevocationEvent.userChanged(previousUsername));
+        if (!previousUsername.equals(currentUser.getUsername())) {
+            revocationBus.publish(RevocationEvent.userChanged(currentUser.getUsername()));
+        }
         
         return ResponseEntity.ok(new MessageResponse("Profile updated successfully!"));
     }
@@ -0,0 +1,41 @@
+package com.ali.dto;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Row count and newest modification time of a filtered set of articles. Any create,
+ * update or delete in the set changes one of the two, so together with the page
+ * parameters they validate a list page without loading it.
+ */
+public class ArticleListRevision {
+
+    private final long count;
+
+    private final LocalDateTime lastUpdateDateTime;
+
+    public ArticleListRevision(long count, LocalDateTime lastUpdateDateTime) {
+        this.count = count;
+        this.lastUpdateDateTime = lastUpdateDateTime;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public LocalDateTime getLastUpdateDateTime() {
+        return lastUpdateDateTime;
+    }
+
+    /**
+     * Strong ETag for a page of this set
+     *
+     * @param pageKey everything that selects the page within the set (paging, sort, format)
+     */
+    public String getETag(String pageKey) {
+        String value = pageKey + "|" + count + "|" + lastUpdateDateTime;
+        return "\"" + DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
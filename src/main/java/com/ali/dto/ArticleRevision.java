@@ -0,0 +1,51 @@
+package com.ali.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version and modification time of one article, read without loading the article
+ * itself. Used as the validator for conditional GETs.
+ */
+public class ArticleRevision {
+
+    private final Long id;
+
+    private final Long version;
+
+    private final LocalDateTime updateDateTime;
+
+    public ArticleRevision(Long id, Long version, LocalDateTime updateDateTime) {
+        this.id = id;
+        this.version = version;
+        this.updateDateTime = updateDateTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdateDateTime() {
+        return updateDateTime;
+    }
+
+    /**
+     * Strong ETag; the version changes with every update of the article
+     */
+    public String getETag() {
+        return "\"" + id + "-" + (version != null ? version : 0L) + "\"";
+    }
+
+    /**
+     * @return the last modification time in epoch millis, or -1 if unknown
+     */
+    public long getLastModified() {
+        return updateDateTime != null
+                ? updateDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1L;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ali.dto;
+
+import com.ali.enums.StatusEnum;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of an article. Built directly by the repository's projection queries, so
+ * only the first {@link #EXCERPT_LENGTH} characters of the content are ever read.
+ */
+public class ArticleSummaryDTO {
+
+    public static final int EXCERPT_LENGTH = 200;
+
+    private Long id;
+
+    private String title;
+
+    private String excerpt;
+
+    private Long categoryId;
+
+    private String imagePath;
+
+    private StatusEnum statusEnum;
+
+    private LocalDateTime createDateTime;
+
+    private LocalDateTime updateDateTime;
+
+    public ArticleSummaryDTO() {
+    }
+
+    public ArticleSummaryDTO(Long id, String title, String excerpt, Long categoryId, String imagePath,
+                             StatusEnum statusEnum, LocalDateTime createDateTime, LocalDateTime updateDateTime) {
+        this.id = id;
+        this.title = title;
+        this.excerpt = excerpt;
+        this.categoryId = categoryId;
+        this.imagePath = imagePath;
+        this.statusEnum = statusEnum;
+        this.createDateTime = createDateTime;
+        this.updateDateTime = updateDateTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public StatusEnum getStatusEnum() {
+        return statusEnum;
+    }
+
+    public void setStatusEnum(StatusEnum statusEnum) {
+        this.statusEnum = statusEnum;
+    }
+
+    public LocalDateTime getCreateDateTime() {
+        return createDateTime;
+    }
+
+    public void setCreateDateTime(LocalDateTime createDateTime) {
+        this.createDateTime = createDateTime;
+    }
+
+    public LocalDateTime getUpdateDateTime() {
+        return updateDateTime;
+    }
+
+    public void setUpdateDateTime(LocalDateTime updateDateTime) {
+        this.updateDateTime = updateDateTime;
+    }
+}
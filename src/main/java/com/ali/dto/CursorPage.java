@@ -0,0 +1,43 @@
+package com.ali.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as the
+ * {@code cursor} parameter to fetch the following page and is null on the last page.
+ * No total is included, so producing a page never needs a COUNT query.
+ */
+public class CursorPage<T> {
+
+    private final List<T> content;
+
+    private final int size;
+
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
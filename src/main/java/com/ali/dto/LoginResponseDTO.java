@@ -9,6 +9,7 @@ public class LoginResponseDTO {
     private boolean mfaRequired;
     private String username;
     private List<String> roles;
+    private String tempToken;
 
     // Default no-args constructor
     public LoginResponseDTO() {
@@ -80,4 +81,12 @@ public class LoginResponseDTO {
     public void setRoles(List<String> roles) {
         this.roles = roles;
     }
+
+    public String getTempToken() {
+        return tempToken;
+    }
+
+    public void setTempToken(String tempToken) {
+        this.tempToken = tempToken;
+    }
 } 
\ No newline at end of file
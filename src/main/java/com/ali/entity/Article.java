@@ -10,7 +10,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "article")
+@Table(name = "article",
+       indexes = {
+               // Keyset feeds seek on these keys instead of skipping offset rows
+               @Index(name = "idx_article_create_date_time_id", columnList = "create_date_time, id"),
+               @Index(name = "idx_article_category_id_id", columnList = "category_id, id"),
+               @Index(name = "idx_article_category_create_date_time_id",
+                      columnList = "category_id, create_date_time, id"),
+               // MAX(update_date_time) for list ETags
+               @Index(name = "idx_article_update_date_time", columnList = "update_date_time")
+       })
 public class Article {
 
     @Id
@@ -33,7 +42,8 @@ public class Article {
     @Column(name = "version")
     private Long version;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lists read the category id through projections or the "category" entity graph
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
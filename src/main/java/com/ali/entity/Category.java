@@ -19,7 +19,8 @@ public class Category {
     @Column(name = "title", nullable = false)
     private String title;
     
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Deleting a category still deletes its articles; other operations no longer walk them
+    @OneToMany(mappedBy = "category", cascade = CascadeType.REMOVE, orphanRemoval = true)
     private List<Article> articles = new ArrayList<>();
 
     @CreationTimestamp
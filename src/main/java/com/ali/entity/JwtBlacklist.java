@@ -1,10 +1,13 @@
 package com.ali.entity;
 
+import com.ali.util.TokenHashUtil;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "jwt_blacklist")
+@Table(name = "jwt_blacklist",
+       indexes = @Index(name = "idx_jwt_blacklist_token_hash", columnList = "token_hash"))
 public class JwtBlacklist {
 
     @Id
@@ -14,6 +17,10 @@ public class JwtBlacklist {
     @Column(nullable = false, length = 512)
     private String token;
 
+    // SHA-256 of the token; all lookups go through this fixed-width indexed key
+    @Column(name = "token_hash", length = 32)
+    private byte[] tokenHash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -36,6 +43,7 @@ public class JwtBlacklist {
     public JwtBlacklist(String token, LocalDateTime expiresAt) {
         this();
         this.token = token;
+        this.tokenHash = TokenHashUtil.sha256(token);
         this.expiresAt = expiresAt;
     }
 
@@ -43,6 +51,7 @@ public class JwtBlacklist {
     public JwtBlacklist(String token, User user, String reason, LocalDateTime expiresAt) {
         this();
         this.token = token;
+        this.tokenHash = TokenHashUtil.sha256(token);
         this.user = user;
         this.reason = reason;
         this.expiresAt = expiresAt;
@@ -65,6 +74,14 @@ public class JwtBlacklist {
         this.token = token;
     }
 
+    public byte[] getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(byte[] tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public User getUser() {
         return user;
     }
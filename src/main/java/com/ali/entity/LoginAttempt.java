@@ -0,0 +1,41 @@
+package com.ali.entity;
+
+import javax.persistence.*;
+
+/**
+ * Row of the login_attempts table used by the database login attempt tracker.
+ * Written through JDBC; mapped here so the schema is managed with the other tables.
+ */
+@Entity
+@Table(name = "login_attempts")
+public class LoginAttempt {
+
+    @Id
+    @Column(name = "username", length = 64)
+    private String username;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "window_start_ms", nullable = false)
+    private long windowStartMs;
+
+    @Column(name = "locked_until_ms", nullable = false)
+    private long lockedUntilMs;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getWindowStartMs() {
+        return windowStartMs;
+    }
+
+    public long getLockedUntilMs() {
+        return lockedUntilMs;
+    }
+}
@@ -0,0 +1,48 @@
+package com.ali.entity;
+
+import javax.persistence.*;
+
+/**
+ * Row of the mfa_pending_sessions table used by the database MFA pending session store.
+ * Written through JDBC; mapped here so the schema is managed with the other tables.
+ */
+@Entity
+@Table(name = "mfa_pending_sessions")
+public class PendingMfaSession {
+
+    @Id
+    @Column(name = "id_hash", length = 64)
+    private String idHash;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "username", nullable = false, length = 64)
+    private String username;
+
+    @Column(name = "expires_at_ms", nullable = false)
+    private long expiresAtMs;
+
+    @Column(name = "failed_attempts", nullable = false, columnDefinition = "INT DEFAULT 0")
+    private int failedAttempts;
+
+    public String getIdHash() {
+        return idHash;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getExpiresAtMs() {
+        return expiresAtMs;
+    }
+
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+}
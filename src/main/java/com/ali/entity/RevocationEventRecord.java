@@ -0,0 +1,116 @@
+package com.ali.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the revocation_events table polled by the database revocation bus
+ */
+@Entity
+@Table(name = "revocation_events")
+public class RevocationEventRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(name = "username")
+    private String username;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "generation")
+    private Long generation;
+
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Column(name = "origin_node", nullable = false, length = 36)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public RevocationEventRecord() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public RevocationEventRecord(String eventType, String username, Long userId, Long generation,
+                                 String tokenHash, String originNode) {
+        this();
+        this.eventType = eventType;
+        this.username = username;
+        this.userId = userId;
+        this.generation = generation;
+        this.tokenHash = tokenHash;
+        this.originNode = originNode;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(Long generation) {
+        this.generation = generation;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
+    public String getOriginNode() {
+        return originNode;
+    }
+
+    public void setOriginNode(String originNode) {
+        this.originNode = originNode;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
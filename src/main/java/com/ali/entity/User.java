@@ -19,6 +19,9 @@ import com.ali.converter.EmailConverter;
            @UniqueConstraint(columnNames = "email")
        })
 public class User {
+    /** Consecutive wrong passwords on /api/auth/login before the account is deactivated */
+    public static final int MAX_FAILED_LOGIN_ATTEMPTS = 5;
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -52,6 +55,11 @@ public class User {
     @Column(name = "failed_login_attempts")
     private int failedLoginAttempts = 0;
 
+    // Maintained only through SessionGenerationRegistry; never written from the entity
+    @Column(name = "session_generation", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT 0")
+    private long sessionGeneration;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles", 
               joinColumns = @JoinColumn(name = "user_id"),
@@ -175,9 +183,13 @@ public class User {
         this.failedLoginAttempts = failedLoginAttempts;
     }
 
+    public long getSessionGeneration() {
+        return sessionGeneration;
+    }
+
     public void incrementFailedLoginAttempts() {
         this.failedLoginAttempts++;
-        if (this.failedLoginAttempts >= 5) {
+        if (this.failedLoginAttempts >= MAX_FAILED_LOGIN_ATTEMPTS) {
             this.active = false;
         }
     }
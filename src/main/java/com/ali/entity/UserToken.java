@@ -1,10 +1,17 @@
 package com.ali.entity;
 
+import com.ali.util.TokenHashUtil;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_tokens")
+@Table(name = "user_tokens",
+       indexes = {
+               @Index(name = "idx_user_tokens_token_hash", columnList = "token_hash"),
+               @Index(name = "idx_user_tokens_username", columnList = "username")
+       })
 public class UserToken {
     
     @Id
@@ -20,6 +27,11 @@ public class UserToken {
     @Column(name = "token", nullable = false, length = 2000)
     private String token;
     
+    // SHA-256 of the token; all lookups go through this fixed-width indexed key
+    @JsonIgnore
+    @Column(name = "token_hash", length = 32)
+    private byte[] tokenHash;
+    
     @Column(name = "is_blacklisted", nullable = false)
     private boolean blacklisted = false;
     
@@ -38,6 +50,10 @@ public class UserToken {
     @Column(name = "last_used_at")
     private LocalDateTime lastUsedAt;
 
+    // Session generation the token was issued with; null for tokens issued before generations
+    @Column(name = "session_generation")
+    private Long sessionGeneration;
+
     public UserToken() {
     }
 
@@ -45,6 +61,7 @@ public class UserToken {
         this.userId = userId;
         this.username = username;
         this.token = token;
+        this.tokenHash = TokenHashUtil.sha256(token);
         this.createdAt = LocalDateTime.now();
         this.expiresAt = expiresAt;
     }
@@ -82,6 +99,14 @@ public class UserToken {
         this.token = token;
     }
 
+    public byte[] getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(byte[] tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public boolean isBlacklisted() {
         return blacklisted;
     }
@@ -129,4 +154,12 @@ public class UserToken {
     public void setLastUsedAt(LocalDateTime lastUsedAt) {
         this.lastUsedAt = lastUsedAt;
     }
+
+    public Long getSessionGeneration() {
+        return sessionGeneration;
+    }
+
+    public void setSessionGeneration(Long sessionGeneration) {
+        this.sessionGeneration = sessionGeneration;
+    }
 } 
\ No newline at end of file
@@ -25,4 +25,7 @@ public interface ArticleMapper {
     Article dtoToEntity(ArticleDTO articleDTO);
 
     List<Article> dtoToEntityList(List<ArticleDTO> articleDTOList);
+
+    // Detached copy, so cached DTOs are never mutated by callers
+    ArticleDTO copy(ArticleDTO articleDTO);
 }
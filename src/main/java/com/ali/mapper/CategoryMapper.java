@@ -13,4 +13,7 @@ public interface CategoryMapper {
     List<CategoryDTO> entityToDTOList(List<Category> categoryList);
 
     Category dtoToEntity(CategoryDTO categoryDTO);
+
+    // Detached copy, so cached DTOs are never mutated by callers
+    CategoryDTO copy(CategoryDTO categoryDTO);
 }
@@ -1,37 +1,142 @@
 package com.ali.repository;
 
+import com.ali.dto.ArticleListRevision;
+import com.ali.dto.ArticleRevision;
+import com.ali.dto.ArticleSummaryDTO;
 import com.ali.entity.Article;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
 
+	// Entity lists join the lazy category in the same query instead of one select per category
+	@EntityGraph(attributePaths = "category")
+	List<Article> findAll();
+
+	@EntityGraph(attributePaths = "category")
 	List<Article> findByTitleContainingIgnoreCase(String title);
 
 	// Add pagination support
+	@EntityGraph(attributePaths = "category")
 	Page<Article> findByTitleContainingIgnoreCase(String title, Pageable pageable);
 
 	// Default findAll with pagination
+	@EntityGraph(attributePaths = "category")
 	Page<Article> findAll(Pageable pageable);
 
+	@EntityGraph(attributePaths = "category")
 	@Query("SELECT a FROM Article a WHERE a.category.id = :categoryId")
 	List<Article> findAllByCategoryId(Long categoryId);
 
 	// Add pagination support for category filtering
+	@EntityGraph(attributePaths = "category")
 	@Query("SELECT a FROM Article a WHERE a.category.id = :categoryId")
 	Page<Article> findAllByCategoryId(Long categoryId, Pageable pageable);
 
+	// Summary projections for list endpoints: the content column is cut to an excerpt in the query
+	String SUMMARY_SELECT = "SELECT new com.ali.dto.ArticleSummaryDTO(a.id, a.title, "
+			+ "SUBSTRING(a.content, 1, " + ArticleSummaryDTO.EXCERPT_LENGTH + "), a.category.id, a.imagePath, "
+			+ "a.statusEnum, a.createDateTime, a.updateDateTime) FROM Article a";
+
+	String TITLE_FILTER = " WHERE LOWER(a.title) LIKE LOWER(CONCAT('%', :title, '%'))";
+
+	String CATEGORY_FILTER = " WHERE a.category.id = :categoryId";
+
+	@Query(SUMMARY_SELECT)
+	List<ArticleSummaryDTO> findSummaries();
+
+	@Query(SUMMARY_SELECT + TITLE_FILTER)
+	List<ArticleSummaryDTO> findSummariesByTitle(@Param("title") String title);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER)
+	List<ArticleSummaryDTO> findSummariesByCategoryId(@Param("categoryId") Long categoryId);
+
+	@Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(a) FROM Article a")
+	Page<ArticleSummaryDTO> findSummaryPage(Pageable pageable);
+
+	@Query(value = SUMMARY_SELECT + TITLE_FILTER, countQuery = "SELECT COUNT(a) FROM Article a" + TITLE_FILTER)
+	Page<ArticleSummaryDTO> findSummaryPageByTitle(@Param("title") String title, Pageable pageable);
+
+	@Query(value = SUMMARY_SELECT + CATEGORY_FILTER, countQuery = "SELECT COUNT(a) FROM Article a" + CATEGORY_FILTER)
+	Page<ArticleSummaryDTO> findSummaryPageByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+	// Offset pages without the COUNT query; a Slice only reads one extra row to detect a next page
+	@Query(SUMMARY_SELECT)
+	Slice<ArticleSummaryDTO> findSummarySlice(Pageable pageable);
+
+	@Query(SUMMARY_SELECT + TITLE_FILTER)
+	Slice<ArticleSummaryDTO> findSummarySliceByTitle(@Param("title") String title, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER)
+	Slice<ArticleSummaryDTO> findSummarySliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+	// Validators for conditional GETs, read without loading the articles
+	@Query("SELECT new com.ali.dto.ArticleRevision(a.id, a.version, a.updateDateTime) FROM Article a WHERE a.id = :id")
+	Optional<ArticleRevision> findRevisionById(@Param("id") Long id);
+
+	String LIST_REVISION_SELECT = "SELECT new com.ali.dto.ArticleListRevision(COUNT(a), MAX(a.updateDateTime)) "
+			+ "FROM Article a";
+
+	@Query(LIST_REVISION_SELECT)
+	ArticleListRevision findListRevision();
+
+	@Query(LIST_REVISION_SELECT + TITLE_FILTER)
+	ArticleListRevision findListRevisionByTitle(@Param("title") String title);
+
+	@Query(LIST_REVISION_SELECT + CATEGORY_FILTER)
+	ArticleListRevision findListRevisionByCategoryId(@Param("categoryId") Long categoryId);
+
+	// Keyset feeds, newest first. The Pageable only limits the rows; the seek predicate
+	// replaces the offset so every page costs the same as the first.
+	@Query(SUMMARY_SELECT + " ORDER BY a.id DESC")
+	List<ArticleSummaryDTO> findFeedById(Pageable pageable);
+
+	@Query(SUMMARY_SELECT + " WHERE a.id < :id ORDER BY a.id DESC")
+	List<ArticleSummaryDTO> findFeedByIdBefore(@Param("id") Long id, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + " ORDER BY a.createDateTime DESC, a.id DESC")
+	List<ArticleSummaryDTO> findFeedByCreateDateTime(Pageable pageable);
+
+	@Query(SUMMARY_SELECT + " WHERE a.createDateTime < :createDateTime "
+			+ "OR (a.createDateTime = :createDateTime AND a.id < :id) "
+			+ "ORDER BY a.createDateTime DESC, a.id DESC")
+	List<ArticleSummaryDTO> findFeedByCreateDateTimeBefore(@Param("createDateTime") LocalDateTime createDateTime,
+			@Param("id") Long id, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER + " ORDER BY a.id DESC")
+	List<ArticleSummaryDTO> findCategoryFeedById(@Param("categoryId") Long categoryId, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER + " AND a.id < :id ORDER BY a.id DESC")
+	List<ArticleSummaryDTO> findCategoryFeedByIdBefore(@Param("categoryId") Long categoryId, @Param("id") Long id,
+			Pageable pageable);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER + " ORDER BY a.createDateTime DESC, a.id DESC")
+	List<ArticleSummaryDTO> findCategoryFeedByCreateDateTime(@Param("categoryId") Long categoryId, Pageable pageable);
+
+	@Query(SUMMARY_SELECT + CATEGORY_FILTER + " AND (a.createDateTime < :createDateTime "
+			+ "OR (a.createDateTime = :createDateTime AND a.id < :id)) "
+			+ "ORDER BY a.createDateTime DESC, a.id DESC")
+	List<ArticleSummaryDTO> findCategoryFeedByCreateDateTimeBefore(@Param("categoryId") Long categoryId,
+			@Param("createDateTime") LocalDateTime createDateTime, @Param("id") Long id, Pageable pageable);
+
 //	   @Query("SELECT * FROM ArticleEntity article Where article.categoryEnum:categoryEnum")
 //	  List<ArticleEntity> findByCategoryEnum(CategoryEnum categoryEnum);
 
 //    List <ArticleEntity> findByTitle(String title);
 
+	@EntityGraph(attributePaths = "category")
 	List<Article> findByCategoryId(Long categoryId);
+	@EntityGraph(attributePaths = "category")
 	Page<Article> findByCategoryId(Long categoryId, Pageable pageable);
 }
@@ -6,8 +6,13 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     // Add pagination support
     Page<Category> findAll(Pageable pageable);
+
+    // Full load for CategoryLookup
+    List<Category> findAllByOrderByIdAsc();
 }
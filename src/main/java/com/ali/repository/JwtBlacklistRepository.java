@@ -18,6 +18,11 @@ public interface JwtBlacklistRepository extends JpaRepository<JwtBlacklist, Long
      */
     boolean existsByToken(String token);
 
+    /**
+     * Check if a token is in the blacklist by its SHA-256 digest
+     */
+    boolean existsByTokenHash(byte[] tokenHash);
+
     /**
      * Find a blacklisted token by its value
      */
@@ -0,0 +1,28 @@
+package com.ali.repository;
+
+import com.ali.entity.RevocationEventRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevocationEventRepository extends JpaRepository<RevocationEventRecord, Long> {
+
+    /**
+     * Events published after the given id, oldest first
+     */
+    List<RevocationEventRecord> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT MAX(e.id) FROM RevocationEventRecord e")
+    Long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM RevocationEventRecord e WHERE e.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
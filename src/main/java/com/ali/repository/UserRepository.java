@@ -2,9 +2,11 @@ package com.ali.repository;
 
 import com.ali.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,4 +21,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     @Query("SELECT CAST(u.createDateTime as java.sql.Date), COUNT(u) FROM User u GROUP BY CAST(u.createDateTime as java.sql.Date) ORDER BY CAST(u.createDateTime as java.sql.Date)")
     List<Object[]> countRegistrationsPerDay();
+
+    // active is assigned first so it is computed from the old counter on every database
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.active = CASE WHEN u.failedLoginAttempts + 1 >= :maxAttempts THEN false ELSE u.active END, "
+            + "u.failedLoginAttempts = u.failedLoginAttempts + 1 WHERE u.id = :id")
+    int incrementFailedLoginAttempts(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.failedLoginAttempts = 0 WHERE u.id = :id AND u.failedLoginAttempts <> 0")
+    int resetFailedLoginAttempts(@Param("id") Long id);
 } 
\ No newline at end of file
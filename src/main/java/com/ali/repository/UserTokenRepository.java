@@ -16,6 +16,8 @@ public interface UserTokenRepository extends JpaRepository<UserToken, Long> {
     
     Optional<UserToken> findByToken(String token);
     
+    Optional<UserToken> findByTokenHash(byte[] tokenHash);
+    
     List<UserToken> findByUserId(Long userId);
     
     List<UserToken> findByUsername(String username);
@@ -31,6 +33,10 @@ public interface UserTokenRepository extends JpaRepository<UserToken, Long> {
     @Query("UPDATE UserToken t SET t.blacklisted = true WHERE t.token = :token")
     void blacklistToken(@Param("token") String token);
     
+    @Modifying
+    @Query("UPDATE UserToken t SET t.blacklisted = true WHERE t.tokenHash = :tokenHash")
+    void blacklistTokenByHash(@Param("tokenHash") byte[] tokenHash);
+    
     @Modifying
     @Query("DELETE FROM UserToken t WHERE t.expiresAt < :before")
     void deleteExpiredTokens(@Param("before") LocalDateTime before);
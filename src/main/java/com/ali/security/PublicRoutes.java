@@ -0,0 +1,57 @@
+package com.ali.security;
+
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Routes open to anonymous callers, compiled once and shared by the security chain
+ * and the JWT filter. {@link #SKIP_AUTH} is the subset whose handlers never read the
+ * authenticated principal, so the filter can skip token validation for them entirely.
+ * /api/test/** stays out of it because its endpoints are guarded by method security.
+ */
+public final class PublicRoutes {
+
+    /** Static pages and assets */
+    private static final String[] STATIC_RESOURCES = {
+            "/", "/index.html", "/welcome.html", "/css/**", "/js/**", "/favicon.ico"
+    };
+
+    /** Public API and tooling routes that never look at the caller's identity */
+    private static final String[] ANONYMOUS_ONLY = {
+            "/api/auth/**",
+            "/api/mfa/**",
+            "/api/categories",
+            "/api/categories/paged",
+            "/api/public/user/**",
+            "/h2-console/**",
+            "/swagger-ui/**",
+            "/v3/api-docs/**"
+    };
+
+    /** Public, but may still use the principal when a token is supplied */
+    private static final String[] OPTIONAL_AUTH = {
+            "/api/test/**"
+    };
+
+    public static final RequestMatcher[] PERMIT_ALL =
+            compile(STATIC_RESOURCES, ANONYMOUS_ONLY, OPTIONAL_AUTH);
+
+    public static final RequestMatcher SKIP_AUTH =
+            new OrRequestMatcher(compile(STATIC_RESOURCES, ANONYMOUS_ONLY));
+
+    private PublicRoutes() {
+    }
+
+    private static RequestMatcher[] compile(String[]... groups) {
+        List<RequestMatcher> matchers = new ArrayList<>();
+        for (String[] group : groups) {
+            Arrays.stream(group).map(AntPathRequestMatcher::new).forEach(matchers::add);
+        }
+        return matchers.toArray(new RequestMatcher[0]);
+    }
+}
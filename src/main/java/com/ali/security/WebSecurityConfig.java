@@ -1,6 +1,9 @@
 package com.ali.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,6 +13,7 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,9 +24,13 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.ali.security.jwt.AuthEntryPointJwt;
 import com.ali.security.jwt.AuthTokenFilter;
+import com.ali.security.password.BcryptCostCalibrator;
+import com.ali.security.password.BoundedPasswordEncoder;
 import com.ali.security.services.UserDetailsServiceImpl;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableMethodSecurity
@@ -33,11 +41,46 @@ public class WebSecurityConfig {
     
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.password-hashing.pool-size:4}")
+    private int passwordHashingPoolSize;
+
+    @Value("${app.auth.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.auth.password-hashing.timeout-ms:5000}")
+    private long passwordHashingTimeoutMs;
+
+    @Value("${app.auth.password-hashing.bcrypt-cost:0}")
+    private int bcryptCost;
+
+    @Value("${app.auth.password-hashing.target-ms:250}")
+    private long bcryptTargetMs;
+
+    @Value("${app.auth.password-hashing.min-cost:10}")
+    private int bcryptMinCost;
+
+    @Value("${app.auth.password-hashing.max-cost:14}")
+    private int bcryptMaxCost;
     
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
         return new AuthTokenFilter();
     }
+
+    /**
+     * The filter runs inside the security chain only; without this Boot also registers
+     * it as a plain servlet filter and every request passes through it twice.
+     */
+    @Bean
+    public FilterRegistrationBean<AuthTokenFilter> authenticationJwtTokenFilterRegistration(AuthTokenFilter filter) {
+        FilterRegistrationBean<AuthTokenFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
     
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
@@ -54,9 +97,24 @@ public class WebSecurityConfig {
         return authConfig.getAuthenticationManager();
     }
     
-    @Bean
+    /**
+     * Delegating encoder on a bounded worker pool, so request threads never queue up behind hashing.
+     * New hashes are stored as {bcrypt} with the cost configured (or calibrated) for this host;
+     * legacy hashes without an id prefix are still verified as BCrypt and report upgradeEncoding.
+     */
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int cost = bcryptCost > 0
+                ? bcryptCost
+                : BcryptCostCalibrator.calibrate(bcryptTargetMs, bcryptMinCost, bcryptMaxCost);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", new BCryptPasswordEncoder(cost));
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", encoders);
+        delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+
+        return new BoundedPasswordEncoder(delegating, passwordHashingPoolSize,
+                passwordHashingQueueCapacity, passwordHashingTimeoutMs, meterRegistry);
     }
 
     @Bean
@@ -80,28 +138,12 @@ public class WebSecurityConfig {
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> 
                 auth
-                    // Fully permit static resources
-                    .requestMatchers(new AntPathRequestMatcher("/")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/index.html")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/welcome.html")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/css/**")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/js/**")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/favicon.ico")).permitAll()
-                    // Auth endpoints
-                    .requestMatchers(new AntPathRequestMatcher("/api/auth/**")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/api/test/**")).permitAll()
-                    // MFA endpoints
-                    .requestMatchers(new AntPathRequestMatcher("/api/mfa/**")).permitAll()
-                    // Categories endpoint (public access)
-                    .requestMatchers(new AntPathRequestMatcher("/api/categories")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/api/categories/paged")).permitAll()
-                    // H2 console
-                    .requestMatchers(new AntPathRequestMatcher("/h2-console/**")).permitAll()
-                    // Swagger
-                    .requestMatchers(new AntPathRequestMatcher("/swagger-ui/**")).permitAll()
-                    .requestMatchers(new AntPathRequestMatcher("/v3/api-docs/**")).permitAll()
-                    // Public user info for forgot password
-                    .requestMatchers(new AntPathRequestMatcher("/api/public/user/**")).permitAll()
+                    // Static resources, auth/MFA, categories, public user info, tooling
+                    .requestMatchers(PublicRoutes.PERMIT_ALL).permitAll()
+                    // Actuator: health/info for any signed-in user, everything else admin-only
+                    .requestMatchers(new AntPathRequestMatcher("/actuator/health/**"),
+                            new AntPathRequestMatcher("/actuator/info")).authenticated()
+                    .requestMatchers(new AntPathRequestMatcher("/actuator/**")).hasRole("ADMIN")
                     // Secured endpoints
                     .requestMatchers(new AntPathRequestMatcher("/api/articles/**")).authenticated()
                     .requestMatchers(new AntPathRequestMatcher("/api/comments/**")).authenticated()
@@ -0,0 +1,38 @@
+package com.ali.security.attempts;
+
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Shared limits for the login attempt trackers
+ */
+public abstract class AbstractLoginAttemptTracker implements LoginAttemptTracker {
+
+    /**
+     * Keys are capped at 64 characters. Login requests do not validate the username
+     * length, so this cap is the only bound on attacker-supplied keys. It matches the
+     * login_attempts.username column, and it stays well above the 20 characters that
+     * sign-up allows, so every real account keeps its own untruncated key.
+     */
+    private static final int MAX_KEY_LENGTH = 64;
+
+    @Value("${app.auth.login-attempts.max-attempts:5}")
+    protected int maxAttempts;
+
+    @Value("${app.auth.login-attempts.window-ms:600000}")
+    protected long windowMs;
+
+    @Value("${app.auth.login-attempts.lockout-ms:600000}")
+    protected long lockoutMs;
+
+    @Override
+    public long getLockoutDurationMs() {
+        return lockoutMs;
+    }
+
+    protected String key(String username) {
+        if (username == null) {
+            return "";
+        }
+        return username.length() > MAX_KEY_LENGTH ? username.substring(0, MAX_KEY_LENGTH) : username;
+    }
+}
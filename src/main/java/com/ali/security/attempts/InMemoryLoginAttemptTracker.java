@@ -0,0 +1,198 @@
+package com.ali.security.attempts;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-node tracker. Entries are spread over independent shards, each capped at
+ * its share of {@code max-entries}; counters are immutable states swapped with CAS,
+ * so request threads never lock. Expired entries are swept on a schedule, and a full
+ * shard first drops expired entries and then unlocked ones, so memory stays flat
+ * when an attacker cycles through random usernames. Locked entries are never evicted,
+ * otherwise such a flood would clear a victim's lockout; while a shard holds nothing
+ * but lockouts, failures of usernames it does not track yet are counted and dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.login-attempts.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptTracker extends AbstractLoginAttemptTracker {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLoginAttemptTracker.class);
+
+    private static final State EMPTY = new State(0, 0L, 0L);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.login-attempts.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${app.auth.login-attempts.shards:16}")
+    private int shardCount;
+
+    private ConcurrentHashMap<String, AtomicReference<State>>[] shards;
+
+    private int maxEntriesPerShard;
+
+    private Counter evictedCounter;
+
+    private Counter untrackedCounter;
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        shards = new ConcurrentHashMap[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        maxEntriesPerShard = Math.max(1, maxEntries / shards.length);
+
+        evictedCounter = Counter.builder("auth.login.attempts.evicted")
+                .description("Live failed-login entries evicted because the tracker was full")
+                .register(meterRegistry);
+        untrackedCounter = Counter.builder("auth.login.attempts.untracked")
+                .description("Failed logins not tracked because their shard was full of lockouts")
+                .register(meterRegistry);
+        Gauge.builder("auth.login.attempts.size", this, InMemoryLoginAttemptTracker::size)
+                .description("Usernames with tracked failed logins")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long getLockoutRemainingMs(String username) {
+        String key = key(username);
+        AtomicReference<State> ref = shard(key).get(key);
+        if (ref == null) {
+            return 0L;
+        }
+        return Math.max(0L, ref.get().lockedUntil - System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean recordFailure(String username) {
+        String key = key(username);
+        long now = System.currentTimeMillis();
+        ConcurrentHashMap<String, AtomicReference<State>> shard = shard(key);
+
+        AtomicReference<State> ref = shard.get(key);
+        if (ref == null) {
+            if (shard.size() >= maxEntriesPerShard && !makeRoom(shard, now)) {
+                untrackedCounter.increment();
+                return false;
+            }
+            ref = shard.computeIfAbsent(key, k -> new AtomicReference<>(EMPTY));
+        }
+        State next = ref.updateAndGet(state -> state.fail(now, maxAttempts, windowMs, lockoutMs));
+        return next.attempts == 0 && next.lockedUntil > now;
+    }
+
+    @Override
+    public void recordSuccess(String username) {
+        String key = key(username);
+        shard(key).remove(key);
+    }
+
+    /**
+     * Drops entries whose window and lockout have both passed
+     */
+    @Scheduled(fixedDelayString = "${app.auth.login-attempts.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (ConcurrentHashMap<String, AtomicReference<State>> shard : shards) {
+            removed += removeExpired(shard, now);
+        }
+        if (removed > 0) {
+            logger.debug("Swept {} expired login attempt entries", removed);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicReference<State>> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, AtomicReference<State>> shard(String key) {
+        return shards[Math.floorMod(key.hashCode(), shards.length)];
+    }
+
+    /**
+     * Frees a tenth of the shard at once so a sustained flood of new usernames pays
+     * for a scan only occasionally. Only unlocked entries are evicted; returns false
+     * if the shard is still full because everything left in it is locked out.
+     */
+    private boolean makeRoom(ConcurrentHashMap<String, AtomicReference<State>> shard, long now) {
+        int target = maxEntriesPerShard - Math.max(1, maxEntriesPerShard / 10);
+        removeExpired(shard, now);
+        if (shard.size() > target) {
+            evictedCounter.increment(evictUnlocked(shard, target, now));
+        }
+        return shard.size() < maxEntriesPerShard;
+    }
+
+    private int evictUnlocked(ConcurrentHashMap<String, AtomicReference<State>> shard, int target, long now) {
+        int evicted = 0;
+        Iterator<Map.Entry<String, AtomicReference<State>>> iterator = shard.entrySet().iterator();
+        while (shard.size() > target && iterator.hasNext()) {
+            Map.Entry<String, AtomicReference<State>> entry = iterator.next();
+            if (entry.getValue().get().lockedUntil <= now) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private int removeExpired(ConcurrentHashMap<String, AtomicReference<State>> shard, long now) {
+        int removed = 0;
+        for (Map.Entry<String, AtomicReference<State>> entry : shard.entrySet()) {
+            State state = entry.getValue().get();
+            if (state.isExpired(now, windowMs) && shard.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static final class State {
+        final int attempts;
+        final long windowStart;
+        final long lockedUntil;
+
+        State(int attempts, long windowStart, long lockedUntil) {
+            this.attempts = attempts;
+            this.windowStart = windowStart;
+            this.lockedUntil = lockedUntil;
+        }
+
+        State fail(long now, int maxAttempts, long windowMs, long lockoutMs) {
+            if (lockedUntil > now) {
+                return this;
+            }
+            int count = windowStart + windowMs <= now ? 1 : attempts + 1;
+            if (count >= maxAttempts) {
+                return new State(0, now, now + lockoutMs);
+            }
+            return new State(count, count == 1 ? now : windowStart, 0L);
+        }
+
+        boolean isExpired(long now, long windowMs) {
+            return lockedUntil <= now && windowStart + windowMs <= now;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.ali.security.attempts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tracker backed by the login_attempts table, so a lockout applies on every node.
+ * Each failure is a single conditional UPDATE (or the first INSERT); the lockout is
+ * taken with a second UPDATE guarded on the attempt count, so exactly one concurrent
+ * request wins it. Times are stored as epoch milliseconds.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.login-attempts.store", havingValue = "database")
+public class JdbcLoginAttemptTracker extends AbstractLoginAttemptTracker {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcLoginAttemptTracker.class);
+
+    private static final String SELECT_LOCKED_UNTIL_SQL =
+            "SELECT locked_until_ms FROM login_attempts WHERE username = ?";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE login_attempts SET "
+            + "attempts = CASE WHEN window_start_ms <= ? THEN 1 ELSE attempts + 1 END, "
+            + "window_start_ms = CASE WHEN window_start_ms <= ? THEN ? ELSE window_start_ms END "
+            + "WHERE username = ? AND locked_until_ms <= ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO login_attempts (username, attempts, window_start_ms, locked_until_ms) VALUES (?, 1, ?, 0)";
+
+    private static final String LOCK_SQL =
+            "UPDATE login_attempts SET attempts = 0, window_start_ms = ?, locked_until_ms = ? "
+            + "WHERE username = ? AND attempts >= ?";
+
+    private static final String DELETE_SQL = "DELETE FROM login_attempts WHERE username = ?";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM login_attempts WHERE locked_until_ms <= ? AND window_start_ms <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long getLockoutRemainingMs(String username) {
+        List<Long> lockedUntil = jdbcTemplate.queryForList(SELECT_LOCKED_UNTIL_SQL, Long.class, key(username));
+        if (lockedUntil.isEmpty() || lockedUntil.get(0) == null) {
+            return 0L;
+        }
+        return Math.max(0L, lockedUntil.get(0) - System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean recordFailure(String username) {
+        String key = key(username);
+        long now = System.currentTimeMillis();
+        long windowStartedBefore = now - windowMs;
+
+        int updated = jdbcTemplate.update(INCREMENT_SQL, windowStartedBefore, windowStartedBefore, now, key, now);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, key, now);
+            } catch (DuplicateKeyException e) {
+                // Another node inserted first, or the row is currently locked
+                updated = jdbcTemplate.update(INCREMENT_SQL, windowStartedBefore, windowStartedBefore, now, key, now);
+                if (updated == 0) {
+                    // Already locked: this failure did not cause the lockout
+                    return false;
+                }
+            }
+        }
+        return jdbcTemplate.update(LOCK_SQL, now, now + lockoutMs, key, maxAttempts) == 1;
+    }
+
+    @Override
+    public void recordSuccess(String username) {
+        jdbcTemplate.update(DELETE_SQL, key(username));
+    }
+
+    /**
+     * Deletes rows whose window and lockout have both passed
+     */
+    @Scheduled(fixedDelayString = "${app.auth.login-attempts.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        int removed = jdbcTemplate.update(PURGE_SQL, now, now - windowMs);
+        if (removed > 0) {
+            logger.debug("Purged {} expired login_attempts rows", removed);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ali.security.attempts;
+
+/**
+ * Counts failed logins per username within a time window and locks the username out
+ * for a while once the limit is reached. Implementations decide where the counters
+ * live (this JVM or a table shared by every node).
+ */
+public interface LoginAttemptTracker {
+
+    /**
+     * Returns how long the username is still locked out, or 0 if it is not
+     */
+    long getLockoutRemainingMs(String username);
+
+    /**
+     * Records a failed attempt. Returns true if this failure locked the username out.
+     */
+    boolean recordFailure(String username);
+
+    /**
+     * Clears the failure count after a successful login
+     */
+    void recordSuccess(String username);
+
+    /**
+     * Length of a lockout once the attempt limit is reached
+     */
+    long getLockoutDurationMs();
+}
@@ -0,0 +1,144 @@
+package com.ali.security.jwt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timers for request authentication ({@code auth.filter.stage}, tagged with
+ * the stage). With {@code app.auth.timing-header.enabled} the stages of the current
+ * request are also summed per thread and returned as a Server-Timing header value.
+ */
+@Component
+public class AuthStageTimer {
+
+    public enum Stage {
+        HEADER_PARSE("header"),
+        TOKEN_CACHE("token-cache"),
+        SIGNATURE("signature"),
+        SESSION_GENERATION("generation"),
+        BLACKLIST("blacklist"),
+        TOKEN_STORE("token-store"),
+        USAGE_UPDATE("usage-update"),
+        USER_LOAD("user-load");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.timing-header.enabled:false}")
+    private boolean headerEnabled;
+
+    private final Timer[] timers = new Timer[STAGES.length];
+
+    private Timer totalTimer;
+
+    private Counter skippedCounter;
+
+    // Per-stage nanos of the request on this thread while the header is enabled
+    private final ThreadLocal<long[]> breakdown = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : STAGES) {
+            timers[stage.ordinal()] = Timer.builder("auth.filter.stage")
+                    .tag("stage", stage.getTag())
+                    .description("Time spent in one stage of request authentication")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+        }
+        totalTimer = Timer.builder("auth.filter")
+                .description("Time spent authenticating a request in AuthTokenFilter")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("auth.filter.skipped")
+                .description("Requests to public routes that bypassed token validation")
+                .register(meterRegistry);
+    }
+
+    public void recordSkipped() {
+        skippedCounter.increment();
+    }
+
+    public boolean isHeaderEnabled() {
+        return headerEnabled;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since {@code startNanos} against a stage
+     */
+    public void stop(Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        timers[stage.ordinal()].record(elapsed, TimeUnit.NANOSECONDS);
+        long[] current = breakdown.get();
+        if (current != null) {
+            current[stage.ordinal()] += elapsed;
+        }
+    }
+
+    /**
+     * Starts collecting the breakdown for the request on this thread, if enabled
+     */
+    public void beginRequest() {
+        if (headerEnabled) {
+            breakdown.set(new long[STAGES.length]);
+        }
+    }
+
+    /**
+     * Records the total authentication time and ends the breakdown
+     *
+     * @param startNanos value of {@link #start()} taken when authentication began
+     * @return the Server-Timing header value, or null if the header is disabled
+     */
+    public String endRequest(long startNanos) {
+        long total = System.nanoTime() - startNanos;
+        totalTimer.record(total, TimeUnit.NANOSECONDS);
+
+        long[] current = breakdown.get();
+        if (current == null) {
+            return null;
+        }
+        breakdown.remove();
+
+        StringBuilder header = new StringBuilder(256);
+        for (Stage stage : STAGES) {
+            if (current[stage.ordinal()] > 0) {
+                appendMetric(header, stage.getTag(), current[stage.ordinal()]);
+            }
+        }
+        appendMetric(header, "total", total);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append("auth-").append(name).append(";dur=")
+                .append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+}
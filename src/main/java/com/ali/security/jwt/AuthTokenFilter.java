@@ -1,6 +1,9 @@
 package com.ali.security.jwt;
 
+import com.ali.security.PublicRoutes;
+import com.ali.security.jwt.AuthStageTimer.Stage;
 import com.ali.security.services.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -23,35 +26,62 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private AuthStageTimer stageTimer;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    /**
+     * Public routes never read the principal, so a token sent to them (often a stale one
+     * attached by the client to every request) is not parsed or looked up at all.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (PublicRoutes.SKIP_AUTH.matches(request)) {
+            stageTimer.recordSkipped();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long filterStart = stageTimer.start();
+        stageTimer.beginRequest();
         try {
+            long start = stageTimer.start();
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
+            stageTimer.stop(Stage.HEADER_PARSE, start);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = jwt != null ? jwtUtils.validateAndGetClaims(jwt) : null;
+            if (claims != null) {
+                String username = claims.getSubject();
+
+                start = stageTimer.start();
+                UserDetails userDetails = userDetailsService.loadUserByUsernameCached(username);
+                stageTimer.stop(Stage.USER_LOAD, start);
                 
                 // Additional check for account status
                 if (!userDetails.isAccountNonLocked() || !userDetails.isEnabled()) {
                     logger.warn("User account is locked or disabled: {}", username);
-                    filterChain.doFilter(request, response);
-                    return;
-                }
-                
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails,
-                                null,
-                                userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                } else {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails,
+                                    null,
+                                    userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
+        } finally {
+            String serverTiming = stageTimer.endRequest(filterStart);
+            if (serverTiming != null) {
+                response.addHeader("Server-Timing", serverTiming);
+            }
         }
 
         filterChain.doFilter(request, response);
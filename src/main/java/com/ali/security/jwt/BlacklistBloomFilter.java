@@ -0,0 +1,142 @@
+package com.ali.security.jwt;
+
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.revocation.RevocationListener;
+import com.ali.util.TokenBloomFilter;
+import com.ali.util.TokenHashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory Bloom filter in front of the jwt_blacklist table.
+ * Almost no presented token is blacklisted, so the filter lets the blacklist check
+ * skip the database unless the token might be in the table.
+ */
+@Component
+public class BlacklistBloomFilter implements RevocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(BlacklistBloomFilter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // hit: the filter ruled the token out; miss: the blacklist table has to be queried
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @Value("${app.auth.blacklist-filter.expected-insertions:100000}")
+    private long expectedInsertions;
+
+    @Value("${app.auth.blacklist-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Null until the first load completes; until then every lookup falls through to the database
+    private volatile TokenBloomFilter current;
+
+    // Filter being rebuilt, if any; additions made during a rebuild go to both filters
+    private volatile TokenBloomFilter rebuilding;
+
+    private final Object rebuildLock = new Object();
+
+    @PostConstruct
+    public void initMetrics() {
+        hitCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "blacklist-filter")
+                .tag("result", "hit")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        missCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "blacklist-filter")
+                .tag("result", "miss")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the filter from jwt_blacklist once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Failed to load the blacklist filter, blacklist checks will use the database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns false if the token is definitely not blacklisted
+     */
+    public boolean mightContain(String token) {
+        TokenBloomFilter filter = current;
+        boolean mightContain = filter == null || filter.mightContain(TokenHashUtil.sha256(token));
+        (mightContain ? missCounter : hitCounter).increment();
+        return mightContain;
+    }
+
+    /**
+     * Adds a newly blacklisted token digest
+     */
+    public void add(byte[] digest) {
+        TokenBloomFilter filter = current;
+        if (filter != null) {
+            filter.put(digest);
+        }
+        TokenBloomFilter pending = rebuilding;
+        if (pending != null) {
+            pending.put(digest);
+        }
+    }
+
+    /**
+     * Blacklisting events are delivered again after their transaction commits, so a
+     * rebuild that read the table before the commit cannot lose the entry
+     */
+    @Override
+    public void onRevocation(RevocationEvent event) {
+        if (event.getType() == RevocationEvent.Type.TOKEN_BLACKLISTED) {
+            add(TokenHashUtil.fromHex(event.getTokenHash()));
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the current table contents so entries removed by the
+     * expired token cleanup stop producing false positives
+     */
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long started = System.currentTimeMillis();
+            long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM jwt_blacklist", Long.class);
+            TokenBloomFilter fresh = new TokenBloomFilter(Math.max(expectedInsertions, count * 2), falsePositiveRate);
+            rebuilding = fresh;
+            try {
+                AtomicLong loaded = new AtomicLong();
+                jdbcTemplate.query("SELECT token, token_hash FROM jwt_blacklist", rs -> {
+                    // Stored digests are used as-is; rows not yet migrated are hashed here
+                    byte[] digest = rs.getBytes(2);
+                    fresh.put(digest != null ? digest : TokenHashUtil.sha256(rs.getString(1)));
+                    loaded.incrementAndGet();
+                });
+                current = fresh;
+                logger.info("Blacklist filter rebuilt with {} token(s) in {} ms",
+                        loaded.get(), System.currentTimeMillis() - started);
+            } finally {
+                rebuilding = null;
+            }
+        }
+    }
+}
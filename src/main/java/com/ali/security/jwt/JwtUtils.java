@@ -1,5 +1,8 @@
 package com.ali.security.jwt;
 
+import com.ali.security.jwt.AuthStageTimer.Stage;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
 import com.ali.security.services.UserDetailsImpl;
 import com.ali.service.JwtBlacklistService;
 import com.ali.service.TokenService;
@@ -12,62 +15,119 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import javax.servlet.http.HttpServletRequest;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    /** Claim holding the user id in stateless mode */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /** Claim holding the user's session generation in stateless mode */
+    public static final String CLAIM_GENERATION = "gen";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
-    @Value("${bezkoder.app.tempTokenExpirationMs}")
-    private int tempTokenExpirationMs;
-    
     @Autowired
     private TokenService tokenService;
     
     @Autowired
     private JwtBlacklistService jwtBlacklistService;
 
+    @Autowired
+    private TokenStateCache tokenStateCache;
+
+    @Autowired
+    private SessionGenerationRegistry sessionGenerationRegistry;
+
+    @Autowired
+    private RevocationBus revocationBus;
+
+    @Autowired
+    private AuthStageTimer stageTimer;
+
+    @Value("${app.auth.stateless.enabled:false}")
+    private boolean statelessMode;
+
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    /**
+     * Builds the HMAC key and the parser once; both are immutable and thread-safe
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+
+    /**
+     * Verifies the signature and expiration of a token and returns its claims
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    private Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
+    /**
+     * Issues a login token and ends every earlier session of the user. The session
+     * generation is bumped before the token is returned, and tokens carrying an older
+     * generation are rejected on validation, so the user_tokens rows of older sessions
+     * are only blacklisted in the background.
+     */
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+        Long userId = userPrincipal.getId();
+        String username = userPrincipal.getUsername();
+
+        // Enforce single session
+        long generation = sessionGenerationRegistry.bumpGeneration(userId);
+        revocationBus.publish(RevocationEvent.userSessionsRevoked(username, userId, generation));
 
-        // Blacklist any existing tokens for this user (enforce single session)
-        tokenService.blacklistAllUserTokens(userPrincipal.getUsername());
-        
         String token = Jwts.builder()
-                .setSubject((userPrincipal.getUsername()))
+                .setId(UUID.randomUUID().toString())
+                .setSubject(username)
+                .claim(CLAIM_USER_ID, userId)
+                .claim(CLAIM_GENERATION, generation)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(getSigningKey())
                 .compact();
-        
+
+        if (statelessMode) {
+            return token;
+        }
+
         // Store the new token
         try {
-            tokenService.createToken(
-                userPrincipal.getId(), 
-                userPrincipal.getUsername(), 
-                token, 
-                jwtExpirationMs, 
-                null // Request object not available here
+            tokenService.createToken(userId, username, token, jwtExpirationMs, generation,
+                    null // Request object not available here
             );
+            tokenService.blacklistTokensBefore(username, generation);
         } catch (Exception e) {
             logger.error("Error storing token: {}", e.getMessage());
         }
-        
+
         return token;
     }
 
@@ -82,56 +142,14 @@ public class JwtUtils {
                 .compact();
     }
 
-    public String generateTempToken(UserDetailsImpl userDetails) {
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + tempTokenExpirationMs))
-                .signWith(getSigningKey())
-                .compact();
-    }
-
-    public String generateJwtTokenFromTempToken(String tempToken) {
-        String username = getUserNameFromTempToken(tempToken);
-        
-        // Blacklist any existing tokens for this user
-        tokenService.blacklistAllUserTokens(username);
-        
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey())
-                .compact();
-    }
-
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
     
     public Date getExpirationFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getExpiration();
+        return parseClaims(token).getExpiration();
     }
 
-    public String getUserNameFromTempToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-    
     /**
      * Adds a token to the blacklist.
      * 
@@ -142,11 +160,7 @@ public class JwtUtils {
     public boolean blacklistToken(String token, String reason) {
         try {
             // Parse token to get expiration date
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parseClaims(token);
             
             String username = claims.getSubject();
             Date expiration = claims.getExpiration();
@@ -156,6 +170,14 @@ public class JwtUtils {
                     .atZone(ZoneId.systemDefault())
                     .toLocalDateTime();
             
+            // Stateless tokens are revoked by their short jti rather than the full token
+            if (statelessMode && claims.getId() != null) {
+                jwtBlacklistService.blacklistToken(claims.getId(), expiryDateTime);
+                revocationBus.publish(RevocationEvent.tokenRevoked(token));
+                logger.info("Token {} for user {} has been blacklisted. Reason: {}", claims.getId(), username, reason);
+                return true;
+            }
+
             // Add to blacklist
             jwtBlacklistService.blacklistToken(token, expiryDateTime);
             
@@ -175,33 +197,132 @@ public class JwtUtils {
     }
 
     public boolean validateJwtToken(String authToken) {
+        return validateAndGetClaims(authToken) != null;
+    }
+
+    /**
+     * Validates a token and returns its verified claims in a single pass.
+     * The signature is checked at most once per token while its state is cached,
+     * so callers should read the subject from the returned claims instead of
+     * parsing the token again.
+     *
+     * @param authToken The compact JWT
+     * @return the token's claims, or null if the token is not valid
+     */
+    public Claims validateAndGetClaims(String authToken) {
+        // Serve recently validated tokens from the in-memory state cache
+        long start = stageTimer.start();
+        TokenStateCache.Entry cached = tokenStateCache.get(authToken);
+        stageTimer.stop(Stage.TOKEN_CACHE, start);
+        if (cached != null) {
+            if (!cached.isValid()) {
+                logger.warn("Token is blacklisted and cannot be used anymore");
+                return null;
+            }
+            if (!statelessMode && tokenStateCache.shouldRecordUsage(cached)) {
+                start = stageTimer.start();
+                tokenService.updateTokenUsage(authToken);
+                stageTimer.stop(Stage.USAGE_UPDATE, start);
+            }
+            return cached.getClaims();
+        }
+
+        long snapshot = tokenStateCache.snapshot();
         try {
-            // First check if token is in the blacklist
-            if (jwtBlacklistService.isTokenBlacklisted(authToken)) {
+            // Verify JWT signature and expiration
+            start = stageTimer.start();
+            Claims claims = parseClaims(authToken);
+            stageTimer.stop(Stage.SIGNATURE, start);
+
+            if (statelessMode) {
+                return validateStatelessClaims(authToken, claims, snapshot);
+            }
+
+            // Reject superseded sessions before touching the token tables
+            start = stageTimer.start();
+            boolean current = isCurrentSession(claims);
+            stageTimer.stop(Stage.SESSION_GENERATION, start);
+            if (!current) {
+                logger.warn("Token belongs to a revoked session");
+                tokenStateCache.putRevoked(authToken);
+                return null;
+            }
+
+            // Check if token is in the blacklist
+            start = stageTimer.start();
+            boolean blacklisted = jwtBlacklistService.isTokenBlacklisted(authToken);
+            stageTimer.stop(Stage.BLACKLIST, start);
+            if (blacklisted) {
                 logger.warn("Token is blacklisted and cannot be used anymore");
-                return false;
+                tokenStateCache.putRevoked(authToken);
+                return null;
             }
             
             // Then check token service database
-            if (!tokenService.isTokenValid(authToken)) {
+            start = stageTimer.start();
+            boolean stored = tokenService.isTokenValid(authToken);
+            stageTimer.stop(Stage.TOKEN_STORE, start);
+            if (!stored) {
                 logger.warn("Token is not found in the active tokens database");
-                return false;
+                tokenStateCache.putRevoked(authToken);
+                return null;
             }
             
-            // Verify JWT signature and expiration
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
+            tokenStateCache.putValid(authToken, claims, snapshot);
             
             // Update last used timestamp
+            start = stageTimer.start();
             tokenService.updateTokenUsage(authToken);
+            stageTimer.stop(Stage.USAGE_UPDATE, start);
             
-            return true;
+            return claims;
         } catch (JwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Returns true unless a later login bumped the user's session generation. Tokens
+     * issued before generations were embedded carry none; they stay valid only while
+     * the user has never been issued a generation-carrying token.
+     */
+    private boolean isCurrentSession(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Long generation = claims.get(CLAIM_GENERATION, Long.class);
+        if (userId == null || generation == null) {
+            userId = sessionGenerationRegistry.findUserId(claims.getSubject());
+            generation = 0L;
+        }
+        return userId != null && sessionGenerationRegistry.isCurrent(userId, generation);
+    }
+
+    /**
+     * Validates a stateless token against the in-memory session generations and the
+     * jti blacklist, without touching the token tables. Tokens issued before the mode
+     * was enabled carry no generation and are rejected, since a bump could not revoke them.
+     */
+    private Claims validateStatelessClaims(String authToken, Claims claims, long snapshot) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Long generation = claims.get(CLAIM_GENERATION, Long.class);
+        long start = stageTimer.start();
+        boolean current = userId != null && generation != null && sessionGenerationRegistry.isCurrent(userId, generation);
+        stageTimer.stop(Stage.SESSION_GENERATION, start);
+        if (!current) {
+            logger.warn("Token belongs to a revoked session");
+            tokenStateCache.putRevoked(authToken);
+            return null;
+        }
+        start = stageTimer.start();
+        boolean blacklisted = claims.getId() != null && jwtBlacklistService.isTokenBlacklisted(claims.getId());
+        stageTimer.stop(Stage.BLACKLIST, start);
+        if (blacklisted) {
+            logger.warn("Token is blacklisted and cannot be used anymore");
+            tokenStateCache.putRevoked(authToken);
+            return null;
+        }
+        tokenStateCache.putValid(authToken, claims, snapshot);
+        return claims;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.ali.security.jwt;
+
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.revocation.RevocationListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory map of userId to the minimum session generation a token must carry
+ * to be accepted. Every login bumps it, which is what enforces a single session.
+ * The authoritative value is the
+ * users.session_generation column; entries are loaded lazily and re-read after
+ * a short TTL so bumps made by other nodes are picked up.
+ */
+@Component
+public class SessionGenerationRegistry implements RevocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(SessionGenerationRegistry.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.stateless.generation-cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    private static final class Entry {
+        private final long generation;
+        private final long loadedAt;
+
+        private Entry(long generation, long loadedAt) {
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        hitCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "session-generation")
+                .tag("result", "hit")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        missCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "session-generation")
+                .tag("result", "miss")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        Gauge.builder("auth.cache.size", this, SessionGenerationRegistry::size)
+                .tag("cache", "session-generation")
+                .description("Entries in the authentication caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns true if a token carrying the given generation is still current for the user
+     */
+    public boolean isCurrent(Long userId, long tokenGeneration) {
+        Long minimum = getGeneration(userId);
+        return minimum != null && tokenGeneration >= minimum;
+    }
+
+    /**
+     * Returns the user's current session generation, or null if the user does not exist
+     */
+    public Long getGeneration(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMs) {
+            hitCounter.increment();
+            return entry.generation;
+        }
+        missCounter.increment();
+        Long generation = loadGeneration(userId);
+        if (generation == null) {
+            entries.remove(userId);
+            return null;
+        }
+        return remember(userId, generation).generation;
+    }
+
+    /**
+     * Invalidates every token previously issued to the user by bumping their generation
+     *
+     * @return the new generation, to be embedded in a token issued right after the bump
+     */
+    public long bumpGeneration(Long userId) {
+        jdbcTemplate.update("UPDATE users SET session_generation = session_generation + 1 WHERE id = ?", userId);
+        Long generation = loadGeneration(userId);
+        if (generation == null) {
+            throw new IllegalArgumentException("User not found: " + userId);
+        }
+        logger.debug("Session generation for user {} bumped to {}", userId, generation);
+        return remember(userId, generation).generation;
+    }
+
+    /**
+     * Resolves a username to its user id, or null if no such user exists
+     */
+    public Long findUserId(String username) {
+        try {
+            return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Drops the cached generation of a user so the next check re-reads the database
+     */
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+
+    /**
+     * Raises the cached generation of a user after a bump made on another node
+     */
+    @Override
+    public void onRevocation(RevocationEvent event) {
+        if (event.getType() == RevocationEvent.Type.USER_SESSIONS_REVOKED
+                && event.getUserId() != null && event.getGeneration() != null) {
+            remember(event.getUserId(), event.getGeneration());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Long loadGeneration(Long userId) {
+        try {
+            return jdbcTemplate.queryForObject("SELECT session_generation FROM users WHERE id = ?", Long.class, userId);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    private Entry remember(Long userId, long generation) {
+        Entry loaded = new Entry(generation, System.currentTimeMillis());
+        // Generations only ever grow, so a racing load of an older value must not win
+        return entries.merge(userId, loaded, (existing, fresh) ->
+                fresh.generation >= existing.generation ? fresh : new Entry(existing.generation, fresh.loadedAt));
+    }
+}
@@ -0,0 +1,248 @@
+package com.ali.security.jwt;
+
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.revocation.RevocationListener;
+import com.ali.util.TokenHashUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-aware cache of token validity states keyed by token hash.
+ * Lets the auth filter skip the blacklist and token-store lookups for tokens
+ * it has recently validated.
+ */
+@Component
+public class TokenStateCache implements RevocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(TokenStateCache.class);
+
+    @Value("${app.auth.token-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.auth.token-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.auth.token-cache.usage-write-interval-ms:60000}")
+    private long usageWriteIntervalMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so validations that started earlier cannot re-cache a stale state
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void initMetrics() {
+        hitCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "token-state")
+                .tag("result", "hit")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        missCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "token-state")
+                .tag("result", "miss")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        Gauge.builder("auth.cache.size", this, TokenStateCache::size)
+                .tag("cache", "token-state")
+                .description("Entries in the authentication caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached validity state of a single token
+     */
+    public static final class Entry {
+        private final Claims claims;
+        private final String username;
+        private final boolean valid;
+        private final long tokenExpiresAt;
+        private final long cachedUntil;
+        private volatile long usageRecordedAt;
+
+        private Entry(Claims claims, String username, boolean valid, long tokenExpiresAt, long cachedUntil, long usageRecordedAt) {
+            this.claims = claims;
+            this.username = username;
+            this.valid = valid;
+            this.tokenExpiresAt = tokenExpiresAt;
+            this.cachedUntil = cachedUntil;
+            this.usageRecordedAt = usageRecordedAt;
+        }
+
+        /**
+         * Verified claims of a valid token. Shared between requests, so treat as read-only.
+         */
+        public Claims getClaims() {
+            return claims;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= cachedUntil || now >= tokenExpiresAt;
+        }
+    }
+
+    /**
+     * Returns the current invalidation generation. Capture it before loading a
+     * token's state from the database and pass it to {@link #putValid}.
+     */
+    public long snapshot() {
+        return generation.get();
+    }
+
+    /**
+     * Looks up the cached state of a token
+     *
+     * @return the cached entry, or null if the token is unknown or its entry has expired
+     */
+    public Entry get(String token) {
+        String key = TokenHashUtil.sha256Hex(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return entry;
+    }
+
+    /**
+     * Caches a token as valid, unless an invalidation happened after the snapshot was taken
+     */
+    public void putValid(String token, Claims claims, long snapshot) {
+        if (generation.get() != snapshot) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        String key = TokenHashUtil.sha256Hex(token);
+        long tokenExpiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        Entry entry = new Entry(claims, claims.getSubject(), true, tokenExpiresAt, now + ttlMs, now);
+        ensureCapacity();
+        entries.put(key, entry);
+        // An invalidation may have raced with the put above
+        if (generation.get() != snapshot) {
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Caches a token as revoked so repeated use is rejected without a database lookup
+     */
+    public void putRevoked(String token) {
+        putRevokedHash(TokenHashUtil.sha256Hex(token));
+    }
+
+    /**
+     * Marks a single token, identified by its hex SHA-256 digest, as revoked
+     */
+    public void revokeHash(String tokenHash) {
+        generation.incrementAndGet();
+        putRevokedHash(tokenHash);
+    }
+
+    @Override
+    public void onRevocation(RevocationEvent event) {
+        switch (event.getType()) {
+            case TOKEN_REVOKED:
+            case TOKEN_BLACKLISTED:
+                revokeHash(event.getTokenHash());
+                break;
+            case USER_SESSIONS_REVOKED:
+                invalidateUser(event.getUsername());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Drops every cached token belonging to a user
+     */
+    public void invalidateUser(String username) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> username.equals(entry.username));
+        logger.debug("Invalidated cached token states for user: {}", username);
+    }
+
+    /**
+     * Drops every cached token state
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Returns true if the token's last-used timestamp is due to be written again.
+     * Claims the write for the calling thread so concurrent requests don't all record it.
+     */
+    public boolean shouldRecordUsage(Entry entry) {
+        long now = System.currentTimeMillis();
+        long last = entry.usageRecordedAt;
+        if (now - last < usageWriteIntervalMs) {
+            return false;
+        }
+        synchronized (entry) {
+            if (entry.usageRecordedAt != last) {
+                return false;
+            }
+            entry.usageRecordedAt = now;
+            return true;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void putRevokedHash(String key) {
+        long now = System.currentTimeMillis();
+        ensureCapacity();
+        entries.put(key, new Entry(null, null, false, Long.MAX_VALUE, now + ttlMs, now));
+    }
+
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        // Still full: drop arbitrary entries until we are back under 90% of capacity
+        int target = (int) (maxSize * 0.9);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
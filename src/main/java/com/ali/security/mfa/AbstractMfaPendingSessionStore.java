@@ -0,0 +1,37 @@
+package com.ali.security.mfa;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Id generation and lifetime shared by the pending session stores
+ */
+public abstract class AbstractMfaPendingSessionStore implements MfaPendingSessionStore {
+
+    private static final int ID_BYTES = 32;
+
+    /**
+     * Generated ids are 43 characters; longer input is rejected without a lookup
+     */
+    private static final int MAX_ID_LENGTH = 64;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${bezkoder.app.tempTokenExpirationMs:300000}")
+    protected long ttlMs;
+
+    @Value("${app.auth.mfa.pending-sessions.max-failed-codes:5}")
+    protected int maxFailedCodes;
+
+    protected String newId() {
+        byte[] bytes = new byte[ID_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    protected boolean isWellFormed(String id) {
+        return id != null && !id.isEmpty() && id.length() <= MAX_ID_LENGTH;
+    }
+}
@@ -0,0 +1,101 @@
+package com.ali.security.mfa;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-node store. The second sign-in step must reach the node that issued the id,
+ * so use the database store behind a load balancer without sticky sessions.
+ * A full store drops expired sessions first and then arbitrary ones.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.mfa.pending-sessions.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryMfaPendingSessionStore extends AbstractMfaPendingSessionStore {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.mfa.pending-sessions.max-entries:10000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, MfaPendingSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("auth.mfa.pending.sessions", sessions, ConcurrentHashMap::size)
+                .description("Sign-ins waiting for a TOTP code")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public MfaPendingSession create(Long userId, String username) {
+        ensureCapacity();
+        MfaPendingSession session = new MfaPendingSession(newId(), userId, username,
+                System.currentTimeMillis() + ttlMs);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    @Override
+    public MfaPendingSession find(String id) {
+        if (!isWellFormed(id)) {
+            return null;
+        }
+        MfaPendingSession session = sessions.get(id);
+        return session == null || session.isExpired(System.currentTimeMillis()) ? null : session;
+    }
+
+    @Override
+    public MfaPendingSession consume(String id) {
+        if (!isWellFormed(id)) {
+            return null;
+        }
+        MfaPendingSession session = sessions.remove(id);
+        return session == null || session.isExpired(System.currentTimeMillis()) ? null : session;
+    }
+
+    @Override
+    public boolean recordFailure(String id) {
+        if (!isWellFormed(id)) {
+            return false;
+        }
+        boolean[] discarded = new boolean[1];
+        sessions.computeIfPresent(id, (key, session) -> {
+            if (session.getFailedAttempts() + 1 >= maxFailedCodes) {
+                discarded[0] = true;
+                return null;
+            }
+            return session.withFailure();
+        });
+        return discarded[0];
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.mfa.pending-sessions.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(session -> session.isExpired(now));
+    }
+
+    private void ensureCapacity() {
+        if (sessions.size() < maxEntries) {
+            return;
+        }
+        sweep();
+
+        int target = (int) (maxEntries * 0.9);
+        Iterator<MfaPendingSession> iterator = sessions.values().iterator();
+        while (sessions.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
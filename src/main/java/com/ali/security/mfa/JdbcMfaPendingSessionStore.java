@@ -0,0 +1,94 @@
+package com.ali.security.mfa;
+
+import com.ali.util.TokenHashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Store backed by the mfa_pending_sessions table, so any node can complete the sign-in.
+ * Only the hex SHA-256 of the id is stored. Consuming is a DELETE, so of two concurrent
+ * attempts with the same id exactly one succeeds.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.mfa.pending-sessions.store", havingValue = "database")
+public class JdbcMfaPendingSessionStore extends AbstractMfaPendingSessionStore {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcMfaPendingSessionStore.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO mfa_pending_sessions (id_hash, user_id, username, expires_at_ms, failed_attempts) "
+            + "VALUES (?, ?, ?, ?, 0)";
+
+    private static final String SELECT_SQL =
+            "SELECT user_id, username, expires_at_ms, failed_attempts FROM mfa_pending_sessions "
+            + "WHERE id_hash = ? AND expires_at_ms > ?";
+
+    private static final String DELETE_SQL = "DELETE FROM mfa_pending_sessions WHERE id_hash = ?";
+
+    private static final String FAIL_SQL =
+            "UPDATE mfa_pending_sessions SET failed_attempts = failed_attempts + 1 WHERE id_hash = ?";
+
+    private static final String DISCARD_SQL =
+            "DELETE FROM mfa_pending_sessions WHERE id_hash = ? AND failed_attempts >= ?";
+
+    private static final String PURGE_SQL = "DELETE FROM mfa_pending_sessions WHERE expires_at_ms <= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public MfaPendingSession create(Long userId, String username) {
+        String id = newId();
+        long expiresAtMs = System.currentTimeMillis() + ttlMs;
+        jdbcTemplate.update(INSERT_SQL, TokenHashUtil.sha256Hex(id), userId, username, expiresAtMs);
+        return new MfaPendingSession(id, userId, username, expiresAtMs);
+    }
+
+    @Override
+    public MfaPendingSession find(String id) {
+        if (!isWellFormed(id)) {
+            return null;
+        }
+        List<MfaPendingSession> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, rowNum) -> new MfaPendingSession(id, rs.getLong("user_id"), rs.getString("username"),
+                        rs.getLong("expires_at_ms"), rs.getInt("failed_attempts")),
+                TokenHashUtil.sha256Hex(id), System.currentTimeMillis());
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @Override
+    public MfaPendingSession consume(String id) {
+        MfaPendingSession session = find(id);
+        if (session == null) {
+            return null;
+        }
+        return jdbcTemplate.update(DELETE_SQL, TokenHashUtil.sha256Hex(id)) == 1 ? session : null;
+    }
+
+    @Override
+    public boolean recordFailure(String id) {
+        if (!isWellFormed(id)) {
+            return false;
+        }
+        // The increment is atomic per row, so concurrent wrong codes are all counted
+        String idHash = TokenHashUtil.sha256Hex(id);
+        if (jdbcTemplate.update(FAIL_SQL, idHash) == 0) {
+            return false;
+        }
+        return jdbcTemplate.update(DISCARD_SQL, idHash, maxFailedCodes) == 1;
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.mfa.pending-sessions.sweep-interval-ms:60000}")
+    public void sweep() {
+        int removed = jdbcTemplate.update(PURGE_SQL, System.currentTimeMillis());
+        if (removed > 0) {
+            logger.debug("Purged {} expired mfa_pending_sessions rows", removed);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ali.security.mfa;
+
+/**
+ * A sign-in that passed the password check and is waiting for the TOTP code
+ */
+public final class MfaPendingSession {
+    private final String id;
+    private final Long userId;
+    private final String username;
+    private final long expiresAtMs;
+    private final int failedAttempts;
+
+    public MfaPendingSession(String id, Long userId, String username, long expiresAtMs) {
+        this(id, userId, username, expiresAtMs, 0);
+    }
+
+    public MfaPendingSession(String id, Long userId, String username, long expiresAtMs, int failedAttempts) {
+        this.id = id;
+        this.userId = userId;
+        this.username = username;
+        this.expiresAtMs = expiresAtMs;
+        this.failedAttempts = failedAttempts;
+    }
+
+    /**
+     * Opaque handle returned to the client as the temp token
+     */
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getExpiresAtMs() {
+        return expiresAtMs;
+    }
+
+    /**
+     * Wrong codes submitted against this session so far
+     */
+    public int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public MfaPendingSession withFailure() {
+        return new MfaPendingSession(id, userId, username, expiresAtMs, failedAttempts + 1);
+    }
+
+    public boolean isExpired(long nowMs) {
+        return nowMs >= expiresAtMs;
+    }
+}
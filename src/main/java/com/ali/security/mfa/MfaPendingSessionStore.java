@@ -0,0 +1,33 @@
+package com.ali.security.mfa;
+
+/**
+ * Sign-ins waiting for their second factor, addressed by an opaque random id
+ */
+public interface MfaPendingSessionStore {
+
+    /**
+     * Starts a pending session that expires after {@code bezkoder.app.tempTokenExpirationMs}
+     */
+    MfaPendingSession create(Long userId, String username);
+
+    /**
+     * @return the session, or null if the id is unknown or expired
+     */
+    MfaPendingSession find(String id);
+
+    /**
+     * Removes the session so it cannot complete a second sign-in
+     *
+     * @return the session, or null if it was unknown, expired or already consumed
+     */
+    MfaPendingSession consume(String id);
+
+    /**
+     * Counts a wrong code against the session and discards the session once
+     * {@code app.auth.mfa.pending-sessions.max-failed-codes} is reached, so the
+     * 6-digit code cannot be brute-forced over one id
+     *
+     * @return true if this failure discarded the session
+     */
+    boolean recordFailure(String id);
+}
@@ -0,0 +1,45 @@
+package com.ali.security.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the BCrypt cost factor for this host: the highest cost whose verification
+ * time stays within the configured target. BCrypt work doubles with every cost step,
+ * so only the minimum cost is measured and the rest is extrapolated from it.
+ */
+public final class BcryptCostCalibrator {
+    private static final Logger logger = LoggerFactory.getLogger(BcryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private static final int SAMPLES = 3;
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMs, int minCost, int maxCost) {
+        double baseMs = measureMatchMs(minCost);
+        int chosen = minCost;
+        while (chosen < maxCost && baseMs * (1L << (chosen + 1 - minCost)) <= targetMs) {
+            chosen++;
+        }
+        logger.info("Calibrated BCrypt cost {} for a {} ms verification target (cost {} took {} ms, range {}-{})",
+                chosen, targetMs, minCost, String.format("%.1f", baseMs), minCost, maxCost);
+        return chosen;
+    }
+
+    private static double measureMatchMs(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        String hash = encoder.encode(SAMPLE_PASSWORD);
+        // The encode above doubles as warm-up; keep the fastest sample to filter out startup noise
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.matches(SAMPLE_PASSWORD, hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+}
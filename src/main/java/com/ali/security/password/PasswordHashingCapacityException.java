@@ -0,0 +1,12 @@
+package com.ali.security.password;
+
+/**
+ * Thrown when the password hashing pool is saturated and a request cannot be queued
+ * (or waited too long in the queue). Mapped to 503 Service Unavailable.
+ */
+public class PasswordHashingCapacityException extends RuntimeException {
+
+    public PasswordHashingCapacityException(String message) {
+        super(message);
+    }
+}
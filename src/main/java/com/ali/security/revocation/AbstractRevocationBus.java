@@ -0,0 +1,51 @@
+package com.ali.security.revocation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Local delivery shared by all bus implementations
+ */
+public abstract class AbstractRevocationBus implements RevocationBus {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractRevocationBus.class);
+
+    @Autowired(required = false)
+    private List<RevocationListener> listeners = Collections.emptyList();
+
+    /**
+     * Applies the event to every local listener. Inside a transaction it is applied
+     * again after commit, so a cache that reloaded the old state in between is
+     * corrected once the change becomes visible.
+     */
+    protected void deliverLocally(RevocationEvent event) {
+        deliver(event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deliver(event);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies the event to every local listener once
+     */
+    protected void deliver(RevocationEvent event) {
+        for (RevocationListener listener : listeners) {
+            try {
+                listener.onRevocation(event);
+            } catch (Exception e) {
+                logger.error("Revocation listener {} failed for {}: {}",
+                        listener.getClass().getSimpleName(), event, e.getMessage());
+            }
+        }
+    }
+}
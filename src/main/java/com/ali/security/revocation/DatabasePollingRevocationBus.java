@@ -0,0 +1,127 @@
+package com.ali.security.revocation;
+
+import com.ali.entity.RevocationEventRecord;
+import com.ali.repository.RevocationEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Multi-node bus backed by the revocation_events table. Published events are
+ * inserted in the caller's transaction and applied locally right away; every
+ * node polls the table and applies events from other nodes, so remote caches
+ * catch up within one poll interval.
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.revocation-bus", havingValue = "database")
+public class DatabasePollingRevocationBus extends AbstractRevocationBus {
+    private static final Logger logger = LoggerFactory.getLogger(DatabasePollingRevocationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private RevocationEventRepository revocationEventRepository;
+
+    @Value("${app.auth.revocation-bus.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.auth.revocation-bus.gap-timeout-ms:5000}")
+    private long gapTimeoutMs;
+
+    @Value("${app.auth.revocation-bus.retention-ms:3600000}")
+    private long retentionMs;
+
+    // Highest id up to which every event has been applied; -1 until the first poll
+    private long watermark = -1;
+
+    // When the oldest unfilled id gap above the watermark was first seen, 0 if none
+    private long gapSince;
+
+    private final Object pollLock = new Object();
+
+    @Override
+    public void publish(RevocationEvent event) {
+        revocationEventRepository.save(new RevocationEventRecord(event.getType().name(), event.getUsername(),
+                event.getUserId(), event.getGeneration(), event.getTokenHash(), nodeId));
+        deliverLocally(event);
+    }
+
+    /**
+     * Applies events published by other nodes since the last poll.
+     * Ids can become visible out of order when concurrent transactions commit, so the
+     * watermark only moves past a missing id once it has stayed missing for the gap
+     * timeout (a rolled-back insert). Events above a gap are re-applied on the next
+     * poll, which is safe because listeners are idempotent.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation-bus.poll-interval-ms:1000}")
+    public void poll() {
+        synchronized (pollLock) {
+            try {
+                if (watermark < 0) {
+                    // Caches start empty, so older events don't need to be replayed
+                    Long maxId = revocationEventRepository.findMaxId();
+                    watermark = maxId != null ? maxId : 0;
+                    logger.info("Revocation bus node {} polling from event {}", nodeId, watermark);
+                    return;
+                }
+
+                List<RevocationEventRecord> records = revocationEventRepository
+                        .findByIdGreaterThanOrderByIdAsc(watermark, PageRequest.of(0, batchSize));
+                long now = System.currentTimeMillis();
+                boolean advancing = true;
+                for (RevocationEventRecord record : records) {
+                    if (!nodeId.equals(record.getOriginNode())) {
+                        deliver(toEvent(record));
+                    }
+                    if (!advancing) {
+                        continue;
+                    }
+                    if (record.getId() == watermark + 1) {
+                        watermark = record.getId();
+                        gapSince = 0;
+                    } else if (gapSince == 0) {
+                        gapSince = now;
+                        advancing = false;
+                    } else if (now - gapSince >= gapTimeoutMs) {
+                        logger.debug("Skipping revocation event id gap {}..{}", watermark + 1, record.getId() - 1);
+                        watermark = record.getId();
+                        gapSince = 0;
+                    } else {
+                        advancing = false;
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to poll revocation events: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes events older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation-bus.cleanup-interval-ms:600000}")
+    @Transactional
+    public void deleteOldEvents() {
+        int deleted = revocationEventRepository.deleteCreatedBefore(
+                LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS));
+        if (deleted > 0) {
+            logger.debug("Deleted {} old revocation event(s)", deleted);
+        }
+    }
+
+    private RevocationEvent toEvent(RevocationEventRecord record) {
+        return new RevocationEvent(RevocationEvent.Type.valueOf(record.getEventType()), record.getUsername(),
+                record.getUserId(), record.getGeneration(), record.getTokenHash());
+    }
+}
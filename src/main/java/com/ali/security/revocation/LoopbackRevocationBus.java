@@ -0,0 +1,17 @@
+package com.ali.security.revocation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-JVM bus for single-node deployments and tests: events only reach this node's caches
+ */
+@Component
+@ConditionalOnProperty(name = "app.auth.revocation-bus", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackRevocationBus extends AbstractRevocationBus {
+
+    @Override
+    public void publish(RevocationEvent event) {
+        deliverLocally(event);
+    }
+}
@@ -0,0 +1,15 @@
+package com.ali.security.revocation;
+
+/**
+ * Channel that delivers revocation events to the auth caches of every node.
+ * Selected with app.auth.revocation-bus: "loopback" (default) only reaches the
+ * local JVM, "database" also reaches other nodes through the revocation_events table.
+ */
+public interface RevocationBus {
+
+    /**
+     * Applies the event to the local caches immediately and makes it visible to
+     * other nodes. Inside a transaction, remote delivery happens once it commits.
+     */
+    void publish(RevocationEvent event);
+}
@@ -0,0 +1,81 @@
+package com.ali.security.revocation;
+
+import com.ali.util.TokenHashUtil;
+
+/**
+ * A change that in-process auth caches must react to. Tokens are only ever
+ * carried as SHA-256 hex digests, never in the clear.
+ */
+public final class RevocationEvent {
+
+    public enum Type {
+        /** A single token was revoked; drop its cached state */
+        TOKEN_REVOKED,
+        /** A token (or jti) was added to jwt_blacklist; also add it to the blacklist filter */
+        TOKEN_BLACKLISTED,
+        /** Every session of a user was revoked, optionally by bumping their session generation */
+        USER_SESSIONS_REVOKED,
+        /** A user's account data changed; drop their cached user details */
+        USER_CHANGED
+    }
+
+    private final Type type;
+    private final String username;
+    private final Long userId;
+    private final Long generation;
+    private final String tokenHash;
+
+    public RevocationEvent(Type type, String username, Long userId, Long generation, String tokenHash) {
+        this.type = type;
+        this.username = username;
+        this.userId = userId;
+        this.generation = generation;
+        this.tokenHash = tokenHash;
+    }
+
+    public static RevocationEvent tokenRevoked(String token) {
+        return new RevocationEvent(Type.TOKEN_REVOKED, null, null, null, TokenHashUtil.sha256Hex(token));
+    }
+
+    public static RevocationEvent tokenBlacklisted(String token) {
+        return new RevocationEvent(Type.TOKEN_BLACKLISTED, null, null, null, TokenHashUtil.sha256Hex(token));
+    }
+
+    public static RevocationEvent userSessionsRevoked(String username, Long userId, Long generation) {
+        return new RevocationEvent(Type.USER_SESSIONS_REVOKED, username, userId, generation, null);
+    }
+
+    public static RevocationEvent userChanged(String username) {
+        return new RevocationEvent(Type.USER_CHANGED, username, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getGeneration() {
+        return generation;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    @Override
+    public String toString() {
+        return "RevocationEvent{" +
+                "type=" + type +
+                ", username='" + username + '\'' +
+                ", userId=" + userId +
+                ", generation=" + generation +
+                '}';
+    }
+}
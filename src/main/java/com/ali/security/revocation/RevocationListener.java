@@ -0,0 +1,14 @@
+package com.ali.security.revocation;
+
+/**
+ * Implemented by in-process caches that must drop or update state when a token,
+ * a user's sessions or a user's account data are revoked on any node
+ */
+public interface RevocationListener {
+
+    /**
+     * Applies a revocation. May be called more than once for the same event, so
+     * implementations must be idempotent.
+     */
+    void onRevocation(RevocationEvent event);
+}
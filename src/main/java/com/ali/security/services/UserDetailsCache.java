@@ -0,0 +1,164 @@
+package com.ali.security.services;
+
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.revocation.RevocationListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived per-user cache of {@link UserDetailsImpl} for authenticated requests.
+ * Saves the user/role join query and the email decryption on every request.
+ * Entries must be evicted whenever a user's username, roles or active flag change.
+ */
+@Component
+public class UserDetailsCache implements RevocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    @Value("${app.auth.user-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.auth.user-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so loads that started earlier cannot re-cache stale details
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    private static final class Entry {
+        private final UserDetailsImpl userDetails;
+        private final long expiresAt;
+
+        private Entry(UserDetailsImpl userDetails, long expiresAt) {
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        hitCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "user-details")
+                .tag("result", "hit")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        missCounter = Counter.builder("auth.cache.requests")
+                .tag("cache", "user-details")
+                .tag("result", "miss")
+                .description("Lookups in the authentication caches")
+                .register(meterRegistry);
+        Gauge.builder("auth.cache.size", this, UserDetailsCache::size)
+                .tag("cache", "user-details")
+                .description("Entries in the authentication caches")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current eviction generation. Capture it before loading the user
+     * from the database and pass it to {@link #put}.
+     */
+    public long snapshot() {
+        return generation.get();
+    }
+
+    /**
+     * @return the cached details, or null on a miss
+     */
+    public UserDetailsImpl get(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            entries.remove(username, entry);
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return entry.userDetails;
+    }
+
+    /**
+     * Caches the details, unless an eviction happened after the snapshot was taken
+     */
+    public void put(UserDetailsImpl userDetails, long snapshot) {
+        if (generation.get() != snapshot) {
+            return;
+        }
+        ensureCapacity();
+        Entry entry = new Entry(userDetails, System.currentTimeMillis() + ttlMs);
+        entries.put(userDetails.getUsername(), entry);
+        if (generation.get() != snapshot) {
+            entries.remove(userDetails.getUsername(), entry);
+        }
+    }
+
+    /**
+     * Evicts a user by username
+     */
+    public void evict(String username) {
+        generation.incrementAndGet();
+        if (username != null) {
+            entries.remove(username);
+            logger.debug("Evicted cached user details for: {}", username);
+        }
+    }
+
+    /**
+     * Evicts a user by id, for callers that no longer know the cached username
+     */
+    public void evictById(Long userId) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> entry.userDetails.getId().equals(userId));
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @Override
+    public void onRevocation(RevocationEvent event) {
+        if (event.getType() == RevocationEvent.Type.USER_CHANGED) {
+            evict(event.getUsername());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now >= entry.expiresAt);
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
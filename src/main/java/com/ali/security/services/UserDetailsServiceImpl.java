@@ -14,6 +14,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserDetailsCache userDetailsCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -22,4 +25,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Loads a user for an already authenticated request, serving hot users from
+     * {@link UserDetailsCache}. Password logins keep using {@link #loadUserByUsername}
+     * so they always see the current password hash and account state.
+     */
+    @Transactional(readOnly = true)
+    public UserDetailsImpl loadUserByUsernameCached(String username) throws UsernameNotFoundException {
+        UserDetailsImpl cached = userDetailsCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        long snapshot = userDetailsCache.snapshot();
+        UserDetailsImpl userDetails = (UserDetailsImpl) loadUserByUsername(username);
+        userDetailsCache.put(userDetails, snapshot);
+        return userDetails;
+    }
 } 
\ No newline at end of file
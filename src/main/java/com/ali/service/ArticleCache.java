@@ -0,0 +1,193 @@
+package com.ali.service;
+
+import com.ali.dto.ArticleDTO;
+import com.ali.mapper.ArticleMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of {@link ArticleDTO} by id for single-article reads.
+ * Callers always get their own copy. A load only replaces an entry with the same or a
+ * newer {@code version}, and loads that started before an eviction are not cached, so
+ * a reader racing with an update cannot put the old article back. Entries expire after
+ * the TTL, which bounds staleness for changes made by other nodes.
+ */
+@Component
+public class ArticleCache {
+    private static final Logger logger = LoggerFactory.getLogger(ArticleCache.class);
+
+    @Value("${app.articles.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.articles.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so loads that started earlier cannot re-cache stale articles
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private ArticleMapper articleMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter hitCounter;
+
+    private Counter missCounter;
+
+    private static final class Entry {
+        private final ArticleDTO article;
+        private final long version;
+        private final long expiresAt;
+
+        private Entry(ArticleDTO article, long expiresAt) {
+            this.article = article;
+            this.version = article.getVersion() != null ? article.getVersion() : -1L;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        hitCounter = Counter.builder("article.cache.requests")
+                .tag("result", "hit")
+                .description("Lookups in the article cache")
+                .register(meterRegistry);
+        missCounter = Counter.builder("article.cache.requests")
+                .tag("result", "miss")
+                .description("Lookups in the article cache")
+                .register(meterRegistry);
+        Gauge.builder("article.cache.size", this, ArticleCache::size)
+                .description("Entries in the article cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the current eviction generation. Capture it before loading the article
+     * from the database and pass it to {@link #put}.
+     */
+    public long snapshot() {
+        return generation.get();
+    }
+
+    /**
+     * @return a copy of the cached article, or null on a miss
+     */
+    public ArticleDTO get(Long id) {
+        Entry entry = find(id);
+        if (entry == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return articleMapper.copy(entry.article);
+    }
+
+    /**
+     * Whether the article is cached, without counting a lookup
+     */
+    public boolean contains(Long id) {
+        return find(id) != null;
+    }
+
+    /**
+     * Caches a copy of the article unless an eviction happened after the snapshot was
+     * taken or a newer version is already cached
+     */
+    public void put(ArticleDTO article, long snapshot) {
+        if (article.getId() == null || generation.get() != snapshot) {
+            return;
+        }
+        ensureCapacity();
+        Entry entry = new Entry(articleMapper.copy(article), System.currentTimeMillis() + ttlMs);
+        entries.merge(article.getId(), entry,
+                (current, loaded) -> current.version > loaded.version ? current : loaded);
+        if (generation.get() != snapshot) {
+            entries.remove(article.getId(), entry);
+        }
+    }
+
+    /**
+     * Evicts an article now and, inside a transaction, again after commit so an article
+     * reloaded from the old row in between is dropped once the change is visible
+     */
+    public void evict(Long id) {
+        evictNow(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                    entries.clear();
+                }
+            });
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry find(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Entry entry = entries.get(id);
+        if (entry != null && System.currentTimeMillis() >= entry.expiresAt) {
+            entries.remove(id, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private void evictNow(Long id) {
+        generation.incrementAndGet();
+        if (id != null) {
+            entries.remove(id);
+            logger.debug("Evicted cached article: {}", id);
+        }
+    }
+
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now >= entry.expiresAt);
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
@@ -1,24 +1,41 @@
 package com.ali.service;
 
 import com.ali.dto.ArticleDTO;
+import com.ali.dto.ArticleListRevision;
+import com.ali.dto.ArticleRevision;
+import com.ali.dto.ArticleSummaryDTO;
+import com.ali.dto.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
 public interface ArticleService {
 
-    List<ArticleDTO> getAllArticles(String title);
+    // List methods return summaries with a content excerpt; use getArticleById for the full article
+    List<ArticleSummaryDTO> getAllArticles(String title);
     
     // Add paginated methods
-    Page<ArticleDTO> getAllArticlesPaged(String title, Pageable pageable);
+    Page<ArticleSummaryDTO> getAllArticlesPaged(String title, Pageable pageable);
     
-    Page<ArticleDTO> getAllArticlesPaged(Pageable pageable);
+    Page<ArticleSummaryDTO> getAllArticlesPaged(Pageable pageable);
+
+    // Offset pages without a total count
+    Slice<ArticleSummaryDTO> getAllArticlesSliced(String title, Pageable pageable);
 
 //    List<ArticleDTO> findByCategoryEnum(CategoryEnum categoryEnum);
 
     ArticleDTO getArticleById(Long id);
     
+    // Version and update time only, for conditional GETs; null if the article does not exist
+    ArticleRevision getArticleRevision(Long id);
+
+    // Count and newest update time of the articles a list endpoint would page over
+    ArticleListRevision getArticleListRevision(String title);
+
+    ArticleListRevision getArticleListRevisionByCategoryId(Long categoryId);
+
     // Check if article exists by ID
     boolean existsById(Long id);
 
@@ -30,8 +47,21 @@ public interface ArticleService {
 
     void deleteAllArticles();
 
-    List<ArticleDTO> getArticleListByCategoryId(Long categoryId);
+    List<ArticleSummaryDTO> getArticleListByCategoryId(Long categoryId);
     
     // Add paginated category filter
-    Page<ArticleDTO> getArticleListByCategoryIdPaged(Long categoryId, Pageable pageable);
+    Page<ArticleSummaryDTO> getArticleListByCategoryIdPaged(Long categoryId, Pageable pageable);
+
+    Slice<ArticleSummaryDTO> getArticleListByCategoryIdSliced(Long categoryId, Pageable pageable);
+
+    /**
+     * Keyset-paginated feed, newest first, optionally restricted to a category
+     *
+     * @param categoryId category to list, or null for all articles
+     * @param cursor cursor from the previous page, or null for the first page
+     * @param size page size
+     * @param byCreateDateTime order by creation time (and id) instead of id alone
+     * @throws IllegalArgumentException if the cursor is malformed or from the other ordering
+     */
+    CursorPage<ArticleSummaryDTO> getArticleFeed(Long categoryId, String cursor, int size, boolean byCreateDateTime);
 }
@@ -0,0 +1,168 @@
+package com.ali.service;
+
+import com.ali.dto.CategoryDTO;
+import com.ali.entity.Category;
+import com.ali.mapper.CategoryMapper;
+import com.ali.repository.CategoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory snapshot of all categories, so category listings, lookups by name and the
+ * category checks on article writes do not query the category table. The whole set is
+ * small and reloaded in one query after any category write, or after the TTL for
+ * changes made by other nodes. Callers always get their own copies.
+ */
+@Component
+public class CategoryLookup {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryLookup.class);
+
+    @Value("${app.categories.lookup.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile Snapshot snapshot;
+
+    // Bumped on every invalidation so a reload that started earlier is not published
+    private final AtomicLong generation = new AtomicLong();
+
+    private Counter reloadCounter;
+
+    private static final class Snapshot {
+        private final Map<Long, CategoryDTO> byId;
+        private final Map<String, CategoryDTO> byTitle;
+        private final long expiresAt;
+
+        private Snapshot(Map<Long, CategoryDTO> byId, Map<String, CategoryDTO> byTitle, long expiresAt) {
+            this.byId = byId;
+            this.byTitle = byTitle;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        reloadCounter = Counter.builder("category.lookup.reloads")
+                .description("Reloads of the in-memory category lookup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return every category, in id order
+     */
+    public List<CategoryDTO> findAll() {
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (CategoryDTO category : current().byId.values()) {
+            categories.add(copy(category));
+        }
+        return categories;
+    }
+
+    /**
+     * @return a copy of the category, or null if it does not exist
+     */
+    public CategoryDTO findById(Long id) {
+        CategoryDTO category = id != null ? current().byId.get(id) : null;
+        return category != null ? copy(category) : null;
+    }
+
+    /**
+     * Finds a category by title, ignoring case and surrounding whitespace
+     *
+     * @return a copy of the category, or null if there is none
+     */
+    public CategoryDTO findByTitle(String title) {
+        CategoryDTO category = title != null ? current().byTitle.get(normalize(title)) : null;
+        return category != null ? copy(category) : null;
+    }
+
+    public boolean exists(Long id) {
+        return id != null && current().byId.containsKey(id);
+    }
+
+    /**
+     * Drops the snapshot now and, inside a transaction, again after commit so a reload
+     * that read the old rows in between is not kept
+     */
+    public void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAt) {
+            return current;
+        }
+        return reload();
+    }
+
+    private Snapshot reload() {
+        long loadGeneration = generation.get();
+        Map<Long, CategoryDTO> byId = new LinkedHashMap<>();
+        Map<String, CategoryDTO> byTitle = new LinkedHashMap<>();
+        for (Category category : categoryRepository.findAllByOrderByIdAsc()) {
+            CategoryDTO categoryDTO = categoryMapper.entityToDTO(category);
+            byId.put(categoryDTO.getId(), categoryDTO);
+            if (categoryDTO.getTitle() != null) {
+                // The first category with a title wins, as in the previous linear search
+                byTitle.putIfAbsent(normalize(categoryDTO.getTitle()), categoryDTO);
+            }
+        }
+        Snapshot loaded = new Snapshot(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byTitle),
+                System.currentTimeMillis() + ttlMs);
+        reloadCounter.increment();
+        if (generation.get() == loadGeneration) {
+            snapshot = loaded;
+            if (generation.get() != loadGeneration) {
+                snapshot = null;
+            }
+        }
+        logger.debug("Loaded {} categories into the lookup", byId.size());
+        return loaded;
+    }
+
+    private void invalidateNow() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private CategoryDTO copy(CategoryDTO category) {
+        return categoryMapper.copy(category);
+    }
+
+    private static String normalize(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,154 @@
+package com.ali.service;
+
+import com.ali.security.jwt.BlacklistBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired rows from user_tokens and jwt_blacklist in small chunks.
+ * Each chunk selects a bounded set of ids and deletes them by primary key in its
+ * own short transaction, with a pause in between, so the purge never holds long
+ * range locks. Deleting by id is idempotent, so several nodes can run it at once.
+ */
+@Service
+public class ExpiredTokenPurgeService {
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredTokenPurgeService.class);
+
+    private static final String USER_TOKENS = "user_tokens";
+
+    private static final String JWT_BLACKLIST = "jwt_blacklist";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BlacklistBloomFilter blacklistBloomFilter;
+
+    @Value("${app.auth.token-purge.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.auth.token-purge.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.auth.token-purge.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    @Value("${app.auth.token-purge.filter-rebuild-threshold:1000}")
+    private long filterRebuildThreshold;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String jdbcTimeZone;
+
+    // Blacklist rows purged since the Bloom filter was last rebuilt
+    private final AtomicLong purgedSinceRebuild = new AtomicLong();
+
+    /**
+     * Purges a bounded amount of expired rows from both token tables
+     */
+    @Scheduled(fixedDelayString = "${app.auth.token-purge.interval-ms:300000}",
+            initialDelayString = "${app.auth.token-purge.initial-delay-ms:60000}")
+    public void purgeExpiredTokens() {
+        purgeUserTokens();
+        purgeBlacklist();
+    }
+
+    /**
+     * @return the number of expired user_tokens rows deleted
+     */
+    public int purgeUserTokens() {
+        return purge(USER_TOKENS);
+    }
+
+    /**
+     * Purges expired blacklist entries and rebuilds the blacklist filter once
+     * enough entries are gone for stale bits to matter
+     *
+     * @return the number of expired jwt_blacklist rows deleted
+     */
+    public int purgeBlacklist() {
+        int deleted = purge(JWT_BLACKLIST);
+        if (deleted > 0 && purgedSinceRebuild.addAndGet(deleted) >= filterRebuildThreshold) {
+            purgedSinceRebuild.set(0);
+            blacklistBloomFilter.rebuild();
+        }
+        return deleted;
+    }
+
+    private int purge(String table) {
+        Timer chunkTimer = Timer.builder("auth.token.purge.chunk")
+                .description("Time taken to delete one chunk of expired tokens")
+                .tag("table", table)
+                .register(meterRegistry);
+        Counter deletedCounter = Counter.builder("auth.token.purge.deleted")
+                .description("Expired token rows deleted")
+                .tag("table", table)
+                .register(meterRegistry);
+
+        String select = "SELECT id FROM " + table + " WHERE expires_at < ? ORDER BY id";
+        Calendar calendar = jdbcTimeZone.isEmpty()
+                ? Calendar.getInstance()
+                : Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int total = 0;
+
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                if (chunk > 0 && pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+
+                Timer.Sample sample = Timer.start(meterRegistry);
+                List<Long> ids = jdbcTemplate.query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(select);
+                    ps.setMaxRows(chunkSize);
+                    ps.setTimestamp(1, now, calendar);
+                    return ps;
+                }, (rs, rowNum) -> rs.getLong(1));
+                if (ids.isEmpty()) {
+                    break;
+                }
+
+                String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+                int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders + ")",
+                        ids.toArray());
+                sample.stop(chunkTimer);
+                deletedCounter.increment(deleted);
+                total += deleted;
+
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The next run picks up where this one stopped
+            logger.warn("Expired token purge of {} stopped after {} row(s): {}", table, total, e.getMessage());
+        }
+
+        if (total > 0) {
+            logger.info("Purged {} expired row(s) from {}", total, table);
+        }
+        return total;
+    }
+}
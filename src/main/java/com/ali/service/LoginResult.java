@@ -0,0 +1,63 @@
+package com.ali.service;
+
+import com.ali.entity.User;
+import com.ali.security.services.UserDetailsImpl;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Outcome of {@link LoginService#authenticate}. On success it carries the loaded user
+ * together with the authentication built from it, so callers need no further lookups.
+ */
+public class LoginResult {
+
+    public enum Status {
+        SUCCESS,
+        USER_NOT_FOUND,
+        INACTIVE,
+        EXPIRED,
+        BAD_CREDENTIALS
+    }
+
+    private final Status status;
+
+    private final User user;
+
+    private final Authentication authentication;
+
+    private LoginResult(Status status, User user, Authentication authentication) {
+        this.status = status;
+        this.user = user;
+        this.authentication = authentication;
+    }
+
+    static LoginResult success(User user, Authentication authentication) {
+        return new LoginResult(Status.SUCCESS, user, authentication);
+    }
+
+    static LoginResult failure(Status status, User user) {
+        return new LoginResult(status, user, null);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * The loaded user, or null when the username does not exist
+     */
+    public User getUser() {
+        return user;
+    }
+
+    public Authentication getAuthentication() {
+        return authentication;
+    }
+
+    public UserDetailsImpl getUserDetails() {
+        return authentication == null ? null : (UserDetailsImpl) authentication.getPrincipal();
+    }
+}
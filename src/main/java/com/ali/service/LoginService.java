@@ -0,0 +1,97 @@
+package com.ali.service;
+
+import com.ali.entity.User;
+import com.ali.repository.UserRepository;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.services.UserDetailsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Password login in one pass: the user and roles are loaded with a single query, the
+ * password is checked outside any transaction, and the users row is written only when
+ * the failed-attempt counter actually changes. Replaces the AuthenticationManager
+ * round trip, which loaded the user again through UserDetailsService.
+ */
+@Service
+public class LoginService {
+    private static final Logger logger = LoggerFactory.getLogger(LoginService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private PasswordUpgradeService passwordUpgradeService;
+
+    @Autowired
+    private RevocationBus revocationBus;
+
+    private volatile String dummyHash;
+
+    /**
+     * Verifies the credentials. Unknown usernames still pay for one hash comparison so
+     * the response time does not reveal which usernames exist.
+     */
+    public LoginResult authenticate(String username, String rawPassword) {
+        Optional<User> userOpt = userRepository.findByUsernameWithRoles(username);
+        if (!userOpt.isPresent()) {
+            encoder.matches(rawPassword == null ? "" : rawPassword, dummyHash());
+            return LoginResult.failure(LoginResult.Status.USER_NOT_FOUND, null);
+        }
+
+        User user = userOpt.get();
+        if (!user.isActive()) {
+            return LoginResult.failure(LoginResult.Status.INACTIVE, user);
+        }
+        if (user.isAccountExpired()) {
+            return LoginResult.failure(LoginResult.Status.EXPIRED, user);
+        }
+        if (rawPassword == null || !encoder.matches(rawPassword, user.getPassword())) {
+            return LoginResult.failure(LoginResult.Status.BAD_CREDENTIALS, user);
+        }
+
+        // Not mirrored on the entity: with open-in-view it stays managed and a later
+        // flush would rewrite the whole row
+        if (user.getFailedLoginAttempts() > 0) {
+            userRepository.resetFailedLoginAttempts(user.getId());
+        }
+        passwordUpgradeService.upgradeIfNeeded(user.getId(), user.getUsername(), rawPassword, user.getPassword());
+
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        return LoginResult.success(user, new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities()));
+    }
+
+    /**
+     * Counts a wrong password against the persistent counter; the account is
+     * deactivated once it reaches {@link User#MAX_FAILED_LOGIN_ATTEMPTS}.
+     */
+    public void recordFailedPassword(User user) {
+        userRepository.incrementFailedLoginAttempts(user.getId(), User.MAX_FAILED_LOGIN_ATTEMPTS);
+        if (user.getFailedLoginAttempts() + 1 >= User.MAX_FAILED_LOGIN_ATTEMPTS) {
+            logger.warn("Deactivating user {} after {} failed login attempts",
+                    user.getUsername(), User.MAX_FAILED_LOGIN_ATTEMPTS);
+            revocationBus.publish(RevocationEvent.userChanged(user.getUsername()));
+        }
+    }
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            hash = encoder.encode(UUID.randomUUID().toString());
+            dummyHash = hash;
+        }
+        return hash;
+    }
+}
@@ -1,6 +1,11 @@
 package com.ali.service;
 
 import com.ali.entity.User;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
 import dev.samstevens.totp.code.*;
 import dev.samstevens.totp.exceptions.QrGenerationException;
 import dev.samstevens.totp.qr.QrData;
@@ -9,16 +14,119 @@ import dev.samstevens.totp.qr.ZxingPngQrGenerator;
 import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
 import dev.samstevens.totp.time.TimeProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
 import static dev.samstevens.totp.util.Utils.getDataUriForImage;
 
+/**
+ * TOTP enrollment and verification. Enrollment keeps one pending secret per user for
+ * {@code app.auth.mfa.qr-cache.ttl-ms}, and the QR images for a (user, secret) pair are
+ * rendered once and served from memory, so reloading the enrollment screen does not
+ * re-run ZXing. Pending secrets are per node; enabling or disabling MFA drops them.
+ */
 @Service
 public class MFAService {
+    public static final String FORMAT_PNG = "png";
+
+    public static final String FORMAT_SVG = "svg";
+
+    private static final String SVG_MIME_TYPE = "image/svg+xml";
+
+    private static final int QUIET_ZONE_MODULES = 4;
+
     private final DefaultSecretGenerator secretGenerator = new DefaultSecretGenerator();
     private final QrGenerator qrGenerator;
     private final CodeVerifier codeVerifier;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.mfa.qr-cache.ttl-ms:600000}")
+    private long qrTtlMs;
+
+    @Value("${app.auth.mfa.qr-cache.max-size:10000}")
+    private int qrMaxSize;
+
+    private final ConcurrentHashMap<Long, PendingSecret> pendingSecrets = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<QrKey, QrImages> qrImages = new ConcurrentHashMap<>();
+
+    private Counter qrHitCounter;
+
+    private Counter qrMissCounter;
+
+    private Timer pngRenderTimer;
+
+    private Timer svgRenderTimer;
+
+    private static final class PendingSecret {
+        private final String secret;
+        private final long expiresAt;
+
+        private PendingSecret(String secret, long expiresAt) {
+            this.secret = secret;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class QrKey {
+        private final Long userId;
+        private final String secret;
+
+        private QrKey(Long userId, String secret) {
+            this.userId = userId;
+            this.secret = secret;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QrKey)) {
+                return false;
+            }
+            QrKey other = (QrKey) o;
+            return userId.equals(other.userId) && secret.equals(other.secret);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, secret);
+        }
+    }
+
+    /**
+     * Rendered images for one (user, secret) pair, filled in per format on first use
+     */
+    private static final class QrImages {
+        private final String email;
+        private final long expiresAt;
+        private final Map<String, byte[]> rendered = new ConcurrentHashMap<>(2);
+
+        private QrImages(String email, long expiresAt) {
+            this.email = email;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     public MFAService() {
         this.qrGenerator = new ZxingPngQrGenerator();
         TimeProvider timeProvider = new SystemTimeProvider();
@@ -26,26 +134,62 @@ public class MFAService {
         this.codeVerifier = new DefaultCodeVerifier(codeGenerator, timeProvider);
     }
 
+    @PostConstruct
+    public void init() {
+        qrHitCounter = Counter.builder("auth.mfa.qr.cache")
+                .tag("result", "hit")
+                .description("Enrollment QR images served from the cache")
+                .register(meterRegistry);
+        qrMissCounter = Counter.builder("auth.mfa.qr.cache")
+                .tag("result", "miss")
+                .description("Enrollment QR images rendered because they were not cached")
+                .register(meterRegistry);
+        pngRenderTimer = Timer.builder("auth.mfa.qr.render")
+                .tag("format", FORMAT_PNG)
+                .register(meterRegistry);
+        svgRenderTimer = Timer.builder("auth.mfa.qr.render")
+                .tag("format", FORMAT_SVG)
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("auth.mfa.qr.cache.size", Tags.empty(), qrImages);
+    }
+
     public String generateSecret() {
         return secretGenerator.generate();
     }
 
-    public String generateQrCodeImageUri(String secret, String email) {
-        // Create proper Google Authenticator compatible QR code data
-        QrData data = new QrData.Builder()
-                .label(email)
-                .secret(secret)
-                .issuer("Blog Application")
-                .algorithm(HashingAlgorithm.SHA1) // Google Authenticator uses SHA1
-                .digits(6)                        // 6 digits is standard
-                .period(30)                       // 30 second period is standard
-                .build();
+    /**
+     * The user's pending enrollment secret, creating one if there is none or it expired
+     */
+    public String getOrCreateEnrollmentSecret(Long userId) {
+        long now = System.currentTimeMillis();
+        return pendingSecrets.compute(userId, (id, pending) ->
+                pending != null && now < pending.expiresAt
+                        ? pending
+                        : new PendingSecret(generateSecret(), now + qrTtlMs)).secret;
+    }
 
+    /**
+     * The user's pending enrollment secret, or null if enrollment has not been started
+     */
+    public String getEnrollmentSecret(Long userId) {
+        PendingSecret pending = pendingSecrets.get(userId);
+        return pending != null && System.currentTimeMillis() < pending.expiresAt ? pending.secret : null;
+    }
+
+    /**
+     * Forgets the pending secret and every cached QR image of the user
+     */
+    public void clearEnrollment(Long userId) {
+        pendingSecrets.remove(userId);
+        qrImages.keySet().removeIf(key -> key.userId.equals(userId));
+    }
+
+    public String generateQrCodeImageUri(String secret, String email) {
         try {
             // Generate the QR code image as a data URI
-            byte[] imageData = qrGenerator.generate(data);
+            byte[] imageData = qrGenerator.generate(buildQrData(secret, email));
             String mimeType = qrGenerator.getImageMimeType();
-            
+
             // Convert to data URI format that can be displayed in an <img> tag
             return getDataUriForImage(imageData, mimeType);
         } catch (QrGenerationException e) {
@@ -53,14 +197,59 @@ public class MFAService {
         }
     }
 
+    /**
+     * Cached data URI of the enrollment QR code in the given format (png or svg)
+     */
+    public String getQrCodeDataUri(Long userId, String secret, String email, String format) {
+        byte[] image = getQrCodeImage(userId, secret, email, format);
+        return "data:" + getQrCodeMimeType(format) + ";base64," + Base64.getEncoder().encodeToString(image);
+    }
+
+    /**
+     * Cached enrollment QR code in the given format (png or svg). The returned array is
+     * shared and must not be modified.
+     */
+    public byte[] getQrCodeImage(Long userId, String secret, String email, String format) {
+        String normalized = normalizeFormat(format);
+        QrImages images = getQrImages(userId, secret, email);
+        byte[] image = images.rendered.get(normalized);
+        if (image != null) {
+            qrHitCounter.increment();
+            return image;
+        }
+        qrMissCounter.increment();
+        Function<String, byte[]> render = FORMAT_SVG.equals(normalized)
+                ? f -> svgRenderTimer.record(() -> renderSvg(secret, email))
+                : f -> pngRenderTimer.record(() -> renderPng(secret, email));
+        return images.rendered.computeIfAbsent(normalized, render);
+    }
+
+    public String getQrCodeMimeType(String format) {
+        return FORMAT_SVG.equals(normalizeFormat(format)) ? SVG_MIME_TYPE : qrGenerator.getImageMimeType();
+    }
+
+    public boolean isSupportedFormat(String format) {
+        return format == null || FORMAT_PNG.equalsIgnoreCase(format) || FORMAT_SVG.equalsIgnoreCase(format);
+    }
+
+    /**
+     * Drops expired pending secrets and QR images
+     */
+    @Scheduled(fixedDelayString = "${app.auth.mfa.qr-cache.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        pendingSecrets.values().removeIf(pending -> now >= pending.expiresAt);
+        qrImages.values().removeIf(images -> now >= images.expiresAt);
+    }
+
     public boolean verifyCode(String secret, String code) {
         if (code == null || code.trim().isEmpty()) {
             return false;
         }
-        
+
         // Remove any spaces or non-numeric characters that might have been entered
         code = code.replaceAll("[^0-9]", "");
-        
+
         return codeVerifier.isValidCode(secret, code);
     }
 
@@ -77,4 +266,93 @@ public class MFAService {
         user.setMfaEnabled(false);
         user.setMfaSecret(null);
     }
-} 
\ No newline at end of file
+
+    private QrImages getQrImages(Long userId, String secret, String email) {
+        QrKey key = new QrKey(userId, secret);
+        QrImages images = qrImages.get(key);
+        if (images != null && System.currentTimeMillis() < images.expiresAt && Objects.equals(images.email, email)) {
+            return images;
+        }
+        ensureCapacity();
+        QrImages fresh = new QrImages(email, System.currentTimeMillis() + qrTtlMs);
+        qrImages.put(key, fresh);
+        return fresh;
+    }
+
+    private void ensureCapacity() {
+        if (qrImages.size() < qrMaxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        qrImages.values().removeIf(images -> now >= images.expiresAt);
+
+        int target = (int) (qrMaxSize * 0.9);
+        Iterator<QrImages> iterator = qrImages.values().iterator();
+        while (qrImages.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private byte[] renderPng(String secret, String email) {
+        try {
+            return qrGenerator.generate(buildQrData(secret, email));
+        } catch (QrGenerationException e) {
+            throw new RuntimeException("Error generating QR code", e);
+        }
+    }
+
+    /**
+     * One module per SVG unit and one path for all dark modules, with each horizontal
+     * run of dark modules drawn as a single rectangle; the browser scales it
+     */
+    private static byte[] renderSvg(String secret, String email) {
+        BitMatrix matrix;
+        try {
+            matrix = new QRCodeWriter().encode(buildQrData(secret, email).getUri(), BarcodeFormat.QR_CODE, 0, 0,
+                    Collections.singletonMap(EncodeHintType.MARGIN, QUIET_ZONE_MODULES));
+        } catch (WriterException e) {
+            throw new RuntimeException("Error generating QR code", e);
+        }
+
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        StringBuilder svg = new StringBuilder(4096)
+                .append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+                .append(width).append(' ').append(height)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < height; y++) {
+            int x = 0;
+            while (x < width) {
+                if (!matrix.get(x, y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y)) {
+                    x++;
+                }
+                svg.append('M').append(start).append(' ').append(y)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static QrData buildQrData(String secret, String email) {
+        // Create proper Google Authenticator compatible QR code data
+        return new QrData.Builder()
+                .label(email)
+                .secret(secret)
+                .issuer("Blog Application")
+                .algorithm(HashingAlgorithm.SHA1) // Google Authenticator uses SHA1
+                .digits(6)                        // 6 digits is standard
+                .period(30)                       // 30 second period is standard
+                .build();
+    }
+
+    private static String normalizeFormat(String format) {
+        return FORMAT_SVG.equalsIgnoreCase(format) ? FORMAT_SVG : FORMAT_PNG;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ali.service;
+
+import com.ali.security.password.PasswordHashingCapacityException;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rehashes outdated password hashes (legacy unprefixed BCrypt, or a lower cost than
+ * this node is configured for) after a successful login. The rehash runs in the
+ * background so the login response is not delayed by a second BCrypt round, and the
+ * write is a compare-and-set on the old hash so a concurrent password change wins.
+ */
+@Service
+public class PasswordUpgradeService {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordUpgradeService.class);
+
+    private static final String UPGRADE_SQL = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RevocationBus revocationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.password-upgrade.queue-capacity:100}")
+    private int queueCapacity;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    private Counter upgradedCounter;
+
+    private Counter skippedCounter;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-upgrade");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        upgradedCounter = Counter.builder("auth.password.upgraded")
+                .description("Password hashes rehashed to the current algorithm and cost")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("auth.password.upgrade.skipped")
+                .description("Password rehashes skipped because the queue was full or the hash changed meanwhile")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedules a rehash if the stored hash is outdated. Call only after the raw password
+     * has been verified against {@code storedHash}.
+     */
+    public void upgradeIfNeeded(Long userId, String username, String rawPassword, String storedHash) {
+        if (userId == null || storedHash == null || !encoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+        if (!inFlight.add(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    upgrade(userId, username, rawPassword, storedHash);
+                } finally {
+                    inFlight.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(userId);
+            skippedCounter.increment();
+            logger.debug("Password upgrade queue full, skipping rehash for user {}", username);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void upgrade(Long userId, String username, String rawPassword, String storedHash) {
+        try {
+            String newHash = encoder.encode(rawPassword);
+            int updated = jdbcTemplate.update(UPGRADE_SQL, newHash, userId, storedHash);
+            if (updated == 1) {
+                upgradedCounter.increment();
+                revocationBus.publish(RevocationEvent.userChanged(username));
+                logger.info("Upgraded password hash for user {}", username);
+            } else {
+                skippedCounter.increment();
+                logger.debug("Password of user {} changed during rehash, keeping the newer hash", username);
+            }
+        } catch (PasswordHashingCapacityException e) {
+            // Logins take priority on the hashing pool; the next login will try again
+            skippedCounter.increment();
+            logger.debug("Hashing pool busy, deferring password upgrade for user {}", username);
+        } catch (Exception e) {
+            logger.warn("Failed to upgrade password hash for user {}: {}", username, e.getMessage());
+        }
+    }
+}
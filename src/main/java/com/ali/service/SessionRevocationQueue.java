@@ -0,0 +1,131 @@
+package com.ali.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background blacklisting of a user's older user_tokens rows after a new login.
+ * The rows are only bookkeeping: the session generation bumped at issue time already
+ * rejects older tokens, so the login does not wait for an UPDATE whose cost grows
+ * with the user's token history. Rows are matched by generation rather than id or
+ * time, so a job that runs late never blacklists a newer session issued on another
+ * node. Requests for the same user are coalesced into one UPDATE up to the newest
+ * generation; when the queue is full the update runs inline.
+ */
+@Service
+public class SessionRevocationQueue {
+    private static final Logger logger = LoggerFactory.getLogger(SessionRevocationQueue.class);
+
+    private static final String BLACKLIST_OLDER_SQL =
+            "UPDATE user_tokens SET is_blacklisted = TRUE WHERE username = ? AND is_blacklisted = FALSE "
+            + "AND (session_generation IS NULL OR session_generation < ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.session-revocation.max-pending:10000}")
+    private int maxPending;
+
+    // username -> newest session generation, tokens of every older one are blacklisted
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-revocation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Timer updateTimer;
+
+    private Counter revokedCounter;
+
+    private Counter inlineCounter;
+
+    @PostConstruct
+    public void init() {
+        updateTimer = Timer.builder("auth.session.revocation.update")
+                .description("Time taken to blacklist a user's older tokens")
+                .register(meterRegistry);
+        revokedCounter = Counter.builder("auth.session.revocation.rows")
+                .description("Older user_tokens rows blacklisted after a new login")
+                .register(meterRegistry);
+        inlineCounter = Counter.builder("auth.session.revocation.inline")
+                .description("Revocations run on the request thread because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.session.revocation.queue.depth", pending, Map::size)
+                .description("Users whose older tokens are waiting to be blacklisted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blacklists, in the background, every token of the user issued before {@code generation}
+     */
+    public void revokeOlderThan(String username, long generation) {
+        if (pending.size() >= maxPending && !pending.containsKey(username)) {
+            inlineCounter.increment();
+            update(username, generation);
+            return;
+        }
+        // Only the first request for a user schedules a task; later ones raise its bound
+        boolean[] scheduled = new boolean[1];
+        pending.compute(username, (key, current) -> {
+            if (current == null) {
+                scheduled[0] = true;
+                return generation;
+            }
+            return Math.max(current, generation);
+        });
+        if (scheduled[0]) {
+            executor.execute(() -> drain(username));
+        }
+    }
+
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("{} session revocations still pending at shutdown", pending.size());
+        }
+    }
+
+    private void drain(String username) {
+        Long generation = pending.remove(username);
+        if (generation == null) {
+            return;
+        }
+        try {
+            update(username, generation);
+        } catch (RuntimeException e) {
+            logger.error("Failed to blacklist older tokens for user {}: {}", username, e.getMessage());
+        }
+    }
+
+    private void update(String username, Long generation) {
+        int rows = updateTimer.record(() -> jdbcTemplate.update(BLACKLIST_OLDER_SQL, username, generation));
+        revokedCounter.increment(rows);
+        logger.debug("Blacklisted {} older tokens for user {}", rows, username);
+    }
+}
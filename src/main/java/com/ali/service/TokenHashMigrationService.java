@@ -0,0 +1,92 @@
+package com.ali.service;
+
+import com.ali.util.TokenHashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Service to fill in the token_hash column of user_tokens and jwt_blacklist rows
+ * created before tokens were looked up by their digest
+ */
+@Service
+public class TokenHashMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenHashMigrationService.class);
+
+    private static final String[] TABLES = {"user_tokens", "jwt_blacklist"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.auth.token-hash-migration.batch-size:500}")
+    private int batchSize;
+
+    // Until the backfill has finished, lookups by digest also fall back to the raw token
+    private volatile boolean complete;
+
+    /**
+     * Hashes all existing tokens that have no digest yet
+     * This method runs once when the application starts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void hashExistingTokens() {
+        try {
+            for (String table : TABLES) {
+                int count = hashExistingTokens(table);
+                if (count > 0) {
+                    logger.info("Successfully hashed {} token(s) in {}", count, table);
+                }
+            }
+            complete = true;
+            logger.info("Token hash migration complete");
+        } catch (Exception e) {
+            logger.error("Error during token hash migration, lookups will keep falling back to raw tokens", e);
+        }
+    }
+
+    /**
+     * Returns true once every stored token has a digest, so raw-token fallbacks can be skipped
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Walks the rows without a digest in id order, one batch at a time. Each batch is
+     * committed on its own so a large table doesn't hold one long transaction.
+     *
+     * @return the number of rows updated
+     */
+    private int hashExistingTokens(String table) {
+        String select = "SELECT id, token FROM " + table + " WHERE token_hash IS NULL AND id > ? ORDER BY id";
+        String update = "UPDATE " + table + " SET token_hash = ? WHERE id = ?";
+        long lastId = 0;
+        int total = 0;
+
+        while (true) {
+            long afterId = lastId;
+            List<Object[]> batch = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(select);
+                ps.setMaxRows(batchSize);
+                ps.setLong(1, afterId);
+                return ps;
+            }, (rs, rowNum) -> new Object[]{TokenHashUtil.sha256(rs.getString(2)), rs.getLong(1)});
+
+            if (batch.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate(update, batch);
+            total += batch.size();
+            lastId = (Long) batch.get(batch.size() - 1)[1];
+            logger.debug("Hashed {} token(s) in {} up to id {}", total, table, lastId);
+        }
+    }
+}
@@ -12,6 +12,12 @@ public interface TokenService {
      */
     UserToken createToken(Long userId, String username, String token, int expirationTimeInMs, HttpServletRequest request);
     
+    /**
+     * Store a new token issued with the given session generation
+     */
+    UserToken createToken(Long userId, String username, String token, int expirationTimeInMs, Long sessionGeneration,
+                          HttpServletRequest request);
+    
     /**
      * Find a token by its value
      */
@@ -32,13 +38,18 @@ public interface TokenService {
      */
     void blacklistAllUserTokens(String username);
     
+    /**
+     * Blacklist, in the background, every token of a user issued with an older session generation
+     */
+    void blacklistTokensBefore(String username, long sessionGeneration);
+    
     /**
      * Blacklist a specific token
      */
     void blacklistToken(String token);
     
     /**
-     * Update the last used timestamp for a token
+     * Update the last used timestamp for a token (written asynchronously)
      */
     void updateTokenUsage(String token);
     
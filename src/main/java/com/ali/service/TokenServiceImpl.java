@@ -2,10 +2,14 @@ package com.ali.service;
 
 import com.ali.entity.UserToken;
 import com.ali.repository.UserTokenRepository;
+import com.ali.security.jwt.SessionGenerationRegistry;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.util.TokenHashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,9 +25,37 @@ public class TokenServiceImpl implements TokenService {
     @Autowired
     private UserTokenRepository tokenRepository;
     
+    @Autowired
+    private RevocationBus revocationBus;
+    
+    @Autowired
+    private TokenUsageRecorder tokenUsageRecorder;
+    
+    @Autowired
+    private SessionGenerationRegistry sessionGenerationRegistry;
+    
+    @Autowired
+    private TokenHashMigrationService tokenHashMigrationService;
+    
+    @Autowired
+    private ExpiredTokenPurgeService expiredTokenPurgeService;
+    
+    @Autowired
+    private SessionRevocationQueue sessionRevocationQueue;
+    
+    @Value("${app.auth.stateless.enabled:false}")
+    private boolean statelessMode;
+    
     @Override
     @Transactional
     public UserToken createToken(Long userId, String username, String token, int expirationTimeInMs, HttpServletRequest request) {
+        return createToken(userId, username, token, expirationTimeInMs, null, request);
+    }
+    
+    @Override
+    @Transactional
+    public UserToken createToken(Long userId, String username, String token, int expirationTimeInMs, Long sessionGeneration,
+                                 HttpServletRequest request) {
         // Calculate expiration time
         LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(expirationTimeInMs / 1000);
         
@@ -36,13 +68,19 @@ public class TokenServiceImpl implements TokenService {
         }
         
         userToken.setLastUsedAt(LocalDateTime.now());
+        userToken.setSessionGeneration(sessionGeneration);
         
         return tokenRepository.save(userToken);
     }
     
     @Override
     public UserToken findByToken(String token) {
-        return tokenRepository.findByToken(token).orElse(null);
+        UserToken userToken = tokenRepository.findByTokenHash(TokenHashUtil.sha256(token)).orElse(null);
+        if (userToken == null && !tokenHashMigrationService.isComplete()) {
+            // Row may predate the token_hash column and not be migrated yet
+            userToken = tokenRepository.findByToken(token).orElse(null);
+        }
+        return userToken;
     }
     
     @Override
@@ -65,32 +103,47 @@ public class TokenServiceImpl implements TokenService {
     @Transactional
     public void blacklistAllUserTokens(String username) {
         logger.info("Blacklisting all tokens for user: {}", username);
-        tokenRepository.blacklistAllTokensForUser(username);
+        if (statelessMode) {
+            // Stateless tokens are not stored; bumping the generation revokes them all at once
+            Long userId = sessionGenerationRegistry.findUserId(username);
+            if (userId != null) {
+                long generation = sessionGenerationRegistry.bumpGeneration(userId);
+                revocationBus.publish(RevocationEvent.userSessionsRevoked(username, userId, generation));
+                return;
+            }
+        } else {
+            tokenRepository.blacklistAllTokensForUser(username);
+        }
+        revocationBus.publish(RevocationEvent.userSessionsRevoked(username, null, null));
+    }
+    
+    @Override
+    public void blacklistTokensBefore(String username, long sessionGeneration) {
+        sessionRevocationQueue.revokeOlderThan(username, sessionGeneration);
     }
     
     @Override
     @Transactional
     public void blacklistToken(String token) {
         logger.info("Blacklisting token: {}", token.substring(0, 10) + "...");
-        tokenRepository.blacklistToken(token);
+        tokenRepository.blacklistTokenByHash(TokenHashUtil.sha256(token));
+        if (!tokenHashMigrationService.isComplete()) {
+            tokenRepository.blacklistToken(token);
+        }
+        revocationBus.publish(RevocationEvent.tokenRevoked(token));
     }
     
     @Override
-    @Transactional
     public void updateTokenUsage(String token) {
-        UserToken userToken = findByToken(token);
-        if (userToken != null) {
-            userToken.setLastUsedAt(LocalDateTime.now());
-            tokenRepository.save(userToken);
-        }
+        // Buffered and written in batches so request threads never wait on this update
+        tokenUsageRecorder.record(token);
     }
     
     @Override
-    @Transactional
-    @Scheduled(cron = "0 0 1 * * ?") // Run at 1 AM every day
     public void cleanupExpiredTokens() {
+        // Purged in small chunks; the purge service also runs this on a short schedule
         logger.info("Cleaning up expired tokens");
-        tokenRepository.deleteExpiredTokens(LocalDateTime.now());
+        expiredTokenPurgeService.purgeUserTokens();
     }
     
     /**
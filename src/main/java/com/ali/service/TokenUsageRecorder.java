@@ -0,0 +1,183 @@
+package com.ali.service;
+
+import com.ali.util.TokenHashUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind recorder for token last-used timestamps.
+ * Request threads only put the token into an in-memory map; repeated uses of the
+ * same token are coalesced and written as one batched JDBC update, either on a
+ * schedule or as soon as the buffer reaches its size threshold.
+ */
+@Service
+public class TokenUsageRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(TokenUsageRecorder.class);
+
+    private static final String UPDATE_SQL = "UPDATE user_tokens SET last_used_at = ? WHERE token_hash = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.auth.token-usage.flush-threshold:500}")
+    private int flushThreshold;
+
+    @Value("${app.auth.token-usage.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String jdbcTimeZone;
+
+    private final ConcurrentHashMap<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Object flushLock = new Object();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-usage-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Timer flushTimer;
+
+    private Counter flushedCounter;
+
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        flushTimer = Timer.builder("auth.token.usage.flush")
+                .description("Time taken to write a batch of token last-used timestamps")
+                .register(meterRegistry);
+        flushedCounter = Counter.builder("auth.token.usage.flushed")
+                .description("Token last-used timestamps written to the database")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("auth.token.usage.dropped")
+                .description("Token last-used updates dropped because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.token.usage.queue.depth", pending, Map::size)
+                .description("Token last-used updates waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records that a token was used now. Never blocks on the database.
+     */
+    public void record(String token) {
+        if (pending.size() >= maxPending && !pending.containsKey(token)) {
+            droppedCounter.increment();
+            requestFlush();
+            return;
+        }
+        pending.put(token, LocalDateTime.now());
+        if (pending.size() >= flushThreshold) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * Returns the number of tokens waiting to be flushed
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * Writes all buffered timestamps as one batched update
+     */
+    @Scheduled(fixedDelayString = "${app.auth.token-usage.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<String> tokens = new ArrayList<>();
+            List<LocalDateTime> usedAt = new ArrayList<>();
+            Iterator<Map.Entry<String, LocalDateTime>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, LocalDateTime> entry = iterator.next();
+                // Only drop the entry if nobody refreshed it while we were draining
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    tokens.add(entry.getKey());
+                    usedAt.add(entry.getValue());
+                }
+            }
+            if (tokens.isEmpty()) {
+                return;
+            }
+
+            Calendar calendar = jdbcTimeZone.isEmpty()
+                    ? Calendar.getInstance()
+                    : Calendar.getInstance(TimeZone.getTimeZone(jdbcTimeZone));
+            try {
+                flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        ps.setTimestamp(1, Timestamp.valueOf(usedAt.get(i)), calendar);
+                        ps.setBytes(2, TokenHashUtil.sha256(tokens.get(i)));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return tokens.size();
+                    }
+                }));
+                flushedCounter.increment(tokens.size());
+                logger.debug("Flushed last-used timestamps for {} token(s)", tokens.size());
+            } catch (Exception e) {
+                // Timestamps are advisory; losing a batch must not break authentication
+                logger.warn("Failed to flush token usage timestamps: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushRequested.set(false);
+                }
+            });
+        }
+    }
+}
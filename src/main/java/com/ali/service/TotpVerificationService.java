@@ -0,0 +1,290 @@
+package com.ali.service;
+
+import com.ali.entity.User;
+import com.ali.repository.UserRepository;
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.security.revocation.RevocationListener;
+import com.ali.security.services.UserDetailsImpl;
+import org.apache.commons.codec.binary.Base32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TOTP checks for login completion (SHA1, 6 digits, 30 s steps, one step of clock
+ * drift either way, same as the authenticator setup in {@link MFAService}).
+ * The decoded secret and the user's details are cached for the temp-token lifetime,
+ * primed when sign-in asks for the code, and the accepted codes for the current
+ * window are computed once per time step, so completing MFA is normally a map
+ * lookup and a string comparison. The last accepted time step per user is kept so
+ * a code cannot be replayed.
+ */
+@Service
+public class TotpVerificationService implements RevocationListener {
+    private static final Logger logger = LoggerFactory.getLogger(TotpVerificationService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA1";
+
+    private static final long PERIOD_SECONDS = 30;
+
+    private static final int DIGITS = 6;
+
+    private static final int ALLOWED_DRIFT_STEPS = 1;
+
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${bezkoder.app.tempTokenExpirationMs:300000}")
+    private long ttlMs;
+
+    @Value("${app.auth.mfa.secret-cache.max-size:10000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Long> lastAcceptedStep = new ConcurrentHashMap<>();
+
+    // Source of the TOTP time step; tests pin it to check codes at known times
+    private Clock clock = Clock.systemUTC();
+
+    private static final class Entry {
+        private final UserDetailsImpl userDetails;
+        private final String secret;
+        private final SecretKeySpec key;
+        private final long expiresAt;
+        private volatile CodeWindow window;
+
+        private Entry(UserDetailsImpl userDetails, String secret, SecretKeySpec key, long expiresAt) {
+            this.userDetails = userDetails;
+            this.secret = secret;
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Codes accepted while the clock is in {@code step}, for steps step-1 .. step+1
+     */
+    private static final class CodeWindow {
+        private final long step;
+        private final byte[][] codes;
+
+        private CodeWindow(long step, byte[][] codes) {
+            this.step = step;
+            this.codes = codes;
+        }
+    }
+
+    /**
+     * Caches the secret of a user who is about to be asked for a code
+     */
+    public void prime(User user) {
+        if (user.isMfaEnabled() && user.getMfaSecret() != null) {
+            cache(user);
+        }
+    }
+
+    /**
+     * Verifies a code for a user whose entity the caller already holds
+     */
+    public boolean verify(User user, String code) {
+        if (!user.isMfaEnabled() || user.getMfaSecret() == null) {
+            return false;
+        }
+        Entry entry = entries.get(user.getUsername());
+        if (entry == null || !entry.secret.equals(user.getMfaSecret()) || isExpired(entry)) {
+            entry = cache(user);
+        }
+        return check(entry, code);
+    }
+
+    /**
+     * Verifies a code by username, loading the user only when it is not cached
+     *
+     * @return the user's details if the code is valid, otherwise null
+     */
+    public UserDetailsImpl verify(String username, String code) {
+        if (username == null) {
+            return null;
+        }
+        Entry entry = entries.get(username);
+        if (entry == null || isExpired(entry)) {
+            Optional<User> user = userRepository.findByUsernameWithRoles(username);
+            if (!user.isPresent() || !user.get().isMfaEnabled() || user.get().getMfaSecret() == null) {
+                return null;
+            }
+            entry = cache(user.get());
+        }
+        return check(entry, code) ? entry.userDetails : null;
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    @Override
+    public void onRevocation(RevocationEvent event) {
+        // MFA was enabled/disabled, or the account changed otherwise
+        if (event.getType() == RevocationEvent.Type.USER_CHANGED) {
+            evict(event.getUsername());
+        }
+    }
+
+    /**
+     * Drops expired secrets and replay markers older than the accepted window
+     */
+    @Scheduled(fixedDelayString = "${app.auth.mfa.secret-cache.sweep-interval-ms:60000}")
+    public void sweep() {
+        entries.values().removeIf(this::isExpired);
+        long oldestRelevantStep = currentStep() - ALLOWED_DRIFT_STEPS - 1;
+        lastAcceptedStep.values().removeIf(step -> step < oldestRelevantStep);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean check(Entry entry, String code) {
+        byte[] normalized = normalize(code);
+        if (normalized == null) {
+            return false;
+        }
+
+        long step = currentStep();
+        CodeWindow window = entry.window;
+        if (window == null || window.step != step) {
+            window = computeWindow(entry.key, step);
+            entry.window = window;
+        }
+
+        for (int i = 0; i < window.codes.length; i++) {
+            if (MessageDigest.isEqual(window.codes[i], normalized)) {
+                return markUsed(entry.userDetails.getUsername(), step - ALLOWED_DRIFT_STEPS + i);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accepts a time step only if it is newer than the last one accepted for the user
+     */
+    private boolean markUsed(String username, long matchedStep) {
+        boolean[] accepted = new boolean[1];
+        lastAcceptedStep.compute(username, (key, previous) -> {
+            if (previous != null && previous >= matchedStep) {
+                return previous;
+            }
+            accepted[0] = true;
+            return matchedStep;
+        });
+        if (!accepted[0]) {
+            logger.warn("Rejected replayed TOTP code for user {}", username);
+        }
+        return accepted[0];
+    }
+
+    private Entry cache(User user) {
+        ensureCapacity();
+        byte[] keyBytes = new Base32().decode(user.getMfaSecret());
+        Entry entry = new Entry(UserDetailsImpl.build(user), user.getMfaSecret(),
+                new SecretKeySpec(keyBytes, HMAC_ALGORITHM), System.currentTimeMillis() + ttlMs);
+        entries.put(user.getUsername(), entry);
+        return entry;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() >= entry.expiresAt;
+    }
+
+    private void ensureCapacity() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        entries.values().removeIf(this::isExpired);
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private long currentStep() {
+        return clock.millis() / 1000 / PERIOD_SECONDS;
+    }
+
+    private static CodeWindow computeWindow(SecretKeySpec key, long step) {
+        byte[][] codes = new byte[2 * ALLOWED_DRIFT_STEPS + 1][];
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = generate(mac, step - ALLOWED_DRIFT_STEPS + i);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA1 not available", e);
+        }
+        return new CodeWindow(step, codes);
+    }
+
+    /**
+     * RFC 6238 code for one time step (dynamic truncation of HMAC-SHA1)
+     */
+    private static byte[] generate(Mac mac, long step) {
+        byte[] hash = mac.doFinal(ByteBuffer.allocate(8).putLong(step).array());
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        String code = Integer.toString(binary % POWERS_OF_TEN[DIGITS]);
+        while (code.length() < DIGITS) {
+            code = "0" + code;
+        }
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Keeps only the digits, as users often type codes with spaces
+     */
+    private static byte[] normalize(String code) {
+        if (code == null) {
+            return null;
+        }
+        byte[] digits = new byte[DIGITS];
+        int count = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (count == DIGITS) {
+                    return null;
+                }
+                digits[count++] = (byte) c;
+            }
+        }
+        return count == DIGITS ? digits : null;
+    }
+}
@@ -1,23 +1,30 @@
 package com.ali.service.impl;
 
 import com.ali.dto.ArticleDTO;
+import com.ali.dto.ArticleListRevision;
+import com.ali.dto.ArticleRevision;
+import com.ali.dto.ArticleSummaryDTO;
+import com.ali.dto.CursorPage;
 import com.ali.entity.Article;
-import com.ali.entity.Category;
 import com.ali.enums.StatusEnum;
 import com.ali.mapper.ArticleMapper;
 import com.ali.repository.ArticleRepository;
 import com.ali.repository.CategoryRepository;
 import com.ali.repository.CommentRepository;
+import com.ali.service.ArticleCache;
 import com.ali.service.ArticleService;
+import com.ali.service.CategoryLookup;
+import com.ali.util.ArticleCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,16 +44,18 @@ public class ArticleServiceImpl implements ArticleService {
     @Autowired
     ArticleMapper articleMapper;
 
-    @Override
-    public List<ArticleDTO> getAllArticles(String title) {
-        List<Article> articleList = new ArrayList<>();
+    @Autowired
+    ArticleCache articleCache;
 
-        if (title == null) {
-            articleList.addAll(articleRepository.findAll());
-        } else
-            articleList.addAll(articleRepository.findByTitleContainingIgnoreCase(title));
+    @Autowired
+    CategoryLookup categoryLookup;
 
-        return articleMapper.entityToDTOList(articleList);
+    @Override
+    public List<ArticleSummaryDTO> getAllArticles(String title) {
+        if (title == null)
+            return articleRepository.findSummaries();
+        else
+            return articleRepository.findSummariesByTitle(title);
     }
 
 //    @Override
@@ -58,6 +67,12 @@ public class ArticleServiceImpl implements ArticleService {
 
     @Override
     public ArticleDTO getArticleById(Long id) {
+        ArticleDTO cached = articleCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long snapshot = articleCache.snapshot();
         Optional<Article> optionalArticle = articleRepository.findById(id);
 
         if (!optionalArticle.isPresent()) {
@@ -65,7 +80,31 @@ public class ArticleServiceImpl implements ArticleService {
         }
 
         Article article = optionalArticle.get();
-        return articleMapper.entityToDTO(article);
+        ArticleDTO articleDTO = articleMapper.entityToDTO(article);
+        articleCache.put(articleDTO, snapshot);
+        return articleDTO;
+    }
+
+    @Override
+    public ArticleRevision getArticleRevision(Long id) {
+        ArticleDTO cached = articleCache.get(id);
+        if (cached != null) {
+            return new ArticleRevision(cached.getId(), cached.getVersion(), cached.getUpdateDateTime());
+        }
+        return articleRepository.findRevisionById(id).orElse(null);
+    }
+
+    @Override
+    public ArticleListRevision getArticleListRevision(String title) {
+        if (title == null || title.trim().isEmpty())
+            return articleRepository.findListRevision();
+        else
+            return articleRepository.findListRevisionByTitle(title);
+    }
+
+    @Override
+    public ArticleListRevision getArticleListRevisionByCategoryId(Long categoryId) {
+        return articleRepository.findListRevisionByCategoryId(categoryId);
     }
 
     @Override
@@ -96,18 +135,19 @@ public class ArticleServiceImpl implements ArticleService {
                 article.setStatusEnum(StatusEnum.PUBLISHED);
             }
             
-            // Verify category exists and set it properly
-            Optional<Category> categoryOpt = categoryRepository.findById(articleDTO.getCategoryId());
-            if (!categoryOpt.isPresent()) {
+            // Verify category exists and set a reference to it, without loading the row
+            if (!categoryLookup.exists(articleDTO.getCategoryId())) {
                 throw new RuntimeException("Category not found with ID: " + articleDTO.getCategoryId());
             }
-            article.setCategory(categoryOpt.get());
+            article.setCategory(categoryRepository.getById(articleDTO.getCategoryId()));
             
             // Explicitly log the image path to verify it's set
             logger.debug("Image path before save: {}", article.getImagePath());
             
             // Save and return
             Article savedArticle = articleRepository.save(article);
+            // The DTO may carry the id of an existing article, in which case save overwrote it
+            articleCache.evict(savedArticle.getId());
             logger.debug("Created article with ID: {}", savedArticle.getId());
             logger.debug("Saved image path: {}", savedArticle.getImagePath());
             
@@ -154,9 +194,8 @@ public class ArticleServiceImpl implements ArticleService {
             
             // Important: Handle category properly
             if (articleDTO.getCategoryId() != null) {
-                Optional<Category> categoryOpt = categoryRepository.findById(articleDTO.getCategoryId());
-                if (categoryOpt.isPresent()) {
-                    updatedArticle.setCategory(categoryOpt.get());
+                if (categoryLookup.exists(articleDTO.getCategoryId())) {
+                    updatedArticle.setCategory(categoryRepository.getById(articleDTO.getCategoryId()));
                 } else {
                     // Keep existing category if new one not found
                     updatedArticle.setCategory(existingArticle.getCategory());
@@ -171,6 +210,7 @@ public class ArticleServiceImpl implements ArticleService {
             
             // Save the updated article
             Article savedArticle = articleRepository.save(updatedArticle);
+            articleCache.evict(id);
             logger.debug("After save, image path: {}", savedArticle.getImagePath());
             
             // Convert back to DTO
@@ -191,6 +231,7 @@ public class ArticleServiceImpl implements ArticleService {
             // we can simply delete the article and all related comments
             // will be automatically deleted
             articleRepository.deleteById(id);
+            articleCache.evict(id);
             
             logger.debug("Successfully deleted article with ID: {}", id);
         } catch (Exception e) {
@@ -209,6 +250,7 @@ public class ArticleServiceImpl implements ArticleService {
             // we can simply delete all articles and all related comments
             // will be automatically deleted
             articleRepository.deleteAll();
+            articleCache.evictAll();
             
             logger.debug("Successfully deleted all articles and their comments");
         } catch (Exception e) {
@@ -218,32 +260,83 @@ public class ArticleServiceImpl implements ArticleService {
     }
 
     @Override
-    public List<ArticleDTO> getArticleListByCategoryId(Long categoryId) {
-        List<Article> articleList = articleRepository.findAllByCategoryId(categoryId);
-        return articleMapper.entityToDTOList(articleList);
+    public List<ArticleSummaryDTO> getArticleListByCategoryId(Long categoryId) {
+        return articleRepository.findSummariesByCategoryId(categoryId);
     }
 
     @Override
-    public Page<ArticleDTO> getAllArticlesPaged(String title, Pageable pageable) {
-        Page<Article> articlePage;
+    public Page<ArticleSummaryDTO> getAllArticlesPaged(String title, Pageable pageable) {
         if (title == null || title.trim().isEmpty())
-            articlePage = articleRepository.findAll(pageable);
+            return articleRepository.findSummaryPage(pageable);
         else
-            articlePage = articleRepository.findByTitleContainingIgnoreCase(title, pageable);
-        
-        return articlePage.map(articleMapper::entityToDTO);
+            return articleRepository.findSummaryPageByTitle(title, pageable);
     }
 
     @Override
-    public Page<ArticleDTO> getAllArticlesPaged(Pageable pageable) {
-        Page<Article> articlePage = articleRepository.findAll(pageable);
-        return articlePage.map(articleMapper::entityToDTO);
+    public Page<ArticleSummaryDTO> getAllArticlesPaged(Pageable pageable) {
+        return articleRepository.findSummaryPage(pageable);
     }
 
     @Override
-    public Page<ArticleDTO> getArticleListByCategoryIdPaged(Long categoryId, Pageable pageable) {
-        Page<Article> articlePage = articleRepository.findAllByCategoryId(categoryId, pageable);
-        return articlePage.map(articleMapper::entityToDTO);
+    public Page<ArticleSummaryDTO> getArticleListByCategoryIdPaged(Long categoryId, Pageable pageable) {
+        return articleRepository.findSummaryPageByCategoryId(categoryId, pageable);
+    }
+
+    @Override
+    public Slice<ArticleSummaryDTO> getAllArticlesSliced(String title, Pageable pageable) {
+        if (title == null || title.trim().isEmpty())
+            return articleRepository.findSummarySlice(pageable);
+        else
+            return articleRepository.findSummarySliceByTitle(title, pageable);
+    }
+
+    @Override
+    public Slice<ArticleSummaryDTO> getArticleListByCategoryIdSliced(Long categoryId, Pageable pageable) {
+        return articleRepository.findSummarySliceByCategoryId(categoryId, pageable);
+    }
+
+    @Override
+    public CursorPage<ArticleSummaryDTO> getArticleFeed(Long categoryId, String cursor, int size, boolean byCreateDateTime) {
+        ArticleCursor after = cursor == null || cursor.isEmpty() ? null : ArticleCursor.decode(cursor);
+        if (after != null && after.hasCreateDateTime() != byCreateDateTime) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        // One extra row tells whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<ArticleSummaryDTO> articles;
+        if (byCreateDateTime) {
+            if (after == null) {
+                articles = categoryId == null
+                        ? articleRepository.findFeedByCreateDateTime(limit)
+                        : articleRepository.findCategoryFeedByCreateDateTime(categoryId, limit);
+            } else {
+                articles = categoryId == null
+                        ? articleRepository.findFeedByCreateDateTimeBefore(after.getCreateDateTime(), after.getId(), limit)
+                        : articleRepository.findCategoryFeedByCreateDateTimeBefore(categoryId,
+                                after.getCreateDateTime(), after.getId(), limit);
+            }
+        } else {
+            if (after == null) {
+                articles = categoryId == null
+                        ? articleRepository.findFeedById(limit)
+                        : articleRepository.findCategoryFeedById(categoryId, limit);
+            } else {
+                articles = categoryId == null
+                        ? articleRepository.findFeedByIdBefore(after.getId(), limit)
+                        : articleRepository.findCategoryFeedByIdBefore(categoryId, after.getId(), limit);
+            }
+        }
+
+        String nextCursor = null;
+        if (articles.size() > size) {
+            articles = articles.subList(0, size);
+            ArticleSummaryDTO last = articles.get(size - 1);
+            nextCursor = (byCreateDateTime
+                    ? ArticleCursor.ofCreateDateTime(last.getCreateDateTime(), last.getId())
+                    : ArticleCursor.ofId(last.getId())).encode();
+        }
+        return new CursorPage<>(articles, size, nextCursor);
     }
 
     @Override
@@ -251,6 +344,6 @@ public class ArticleServiceImpl implements ArticleService {
         if (id == null) {
             return false;
         }
-        return articleRepository.existsById(id);
+        return articleCache.contains(id) || articleRepository.existsById(id);
     }
 }
@@ -4,6 +4,8 @@ import com.ali.dto.CategoryDTO;
 import com.ali.entity.Category;
 import com.ali.mapper.CategoryMapper;
 import com.ali.repository.CategoryRepository;
+import com.ali.service.ArticleCache;
+import com.ali.service.CategoryLookup;
 import com.ali.service.CategoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +27,12 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Autowired
     CategoryRepository categoryRepository;
+
+    @Autowired
+    CategoryLookup categoryLookup;
+
+    @Autowired
+    ArticleCache articleCache;
     
     @Override
     @Transactional
@@ -39,23 +47,19 @@ public class CategoryServiceImpl implements CategoryService {
         
         // Save and return
         Category savedCategory = categoryRepository.save(category);
+        categoryLookup.invalidate();
         logger.debug("Created category with ID: {}", savedCategory.getId());
         return categoryMapper.entityToDTO(savedCategory);
     }
 
     @Override
     public List<CategoryDTO> getAllCategoryList() {
-        List<Category> categoryList = categoryRepository.findAll();
-        return categoryMapper.entityToDTOList(categoryList);
+        return categoryLookup.findAll();
     }
 
     @Override
     public CategoryDTO getCategoryById(Long id) {
-        Optional<Category> category = categoryRepository.findById(id);
-        if (category.isPresent()) {
-            return categoryMapper.entityToDTO(category.get());
-        }
-        return null;
+        return categoryLookup.findById(id);
     }
 
     @Override
@@ -66,6 +70,7 @@ public class CategoryServiceImpl implements CategoryService {
             Category category = optionalCategory.get();
             category.setTitle(categoryDTO.getTitle());
             Category categoryAfterUpdate = categoryRepository.save(category);
+            categoryLookup.invalidate();
             logger.debug("Updated category with ID: {}", categoryAfterUpdate.getId());
             return categoryMapper.entityToDTO(categoryAfterUpdate);
         }
@@ -76,6 +81,9 @@ public class CategoryServiceImpl implements CategoryService {
     @Transactional
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        categoryLookup.invalidate();
+        // The category's articles were deleted with it
+        articleCache.evictAll();
         logger.debug("Deleted category with ID: {}", id);
     }
 
@@ -104,14 +112,11 @@ public class CategoryServiceImpl implements CategoryService {
         logger.debug("Finding category by name: {}", name);
         
         // First, try to find the category by name (case insensitive)
-        List<Category> categories = categoryRepository.findAll();
-        Optional<Category> existingCategory = categories.stream()
-            .filter(c -> c.getTitle().trim().equalsIgnoreCase(name.trim()))
-            .findFirst();
+        CategoryDTO existingCategory = categoryLookup.findByTitle(name);
         
-        if (existingCategory.isPresent()) {
+        if (existingCategory != null) {
             logger.debug("Found existing category with name: {}", name);
-            return categoryMapper.entityToDTO(existingCategory.get());
+            return existingCategory;
         }
         
         // If no category exists with this name, create one
@@ -119,6 +124,7 @@ public class CategoryServiceImpl implements CategoryService {
         Category newCategory = new Category();
         newCategory.setTitle(name.trim());
         Category savedCategory = categoryRepository.save(newCategory);
+        categoryLookup.invalidate();
         
         return categoryMapper.entityToDTO(savedCategory);
     }
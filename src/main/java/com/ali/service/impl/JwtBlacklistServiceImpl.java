@@ -3,11 +3,16 @@ package com.ali.service.impl;
 import com.ali.entity.JwtBlacklist;
 import com.ali.entity.User;
 import com.ali.repository.JwtBlacklistRepository;
+import com.ali.security.jwt.BlacklistBloomFilter;
+import com.ali.security.revocation.RevocationBus;
+import com.ali.security.revocation.RevocationEvent;
+import com.ali.service.ExpiredTokenPurgeService;
 import com.ali.service.JwtBlacklistService;
+import com.ali.service.TokenHashMigrationService;
+import com.ali.util.TokenHashUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,12 +28,27 @@ public class JwtBlacklistServiceImpl implements JwtBlacklistService {
     @Autowired
     private JwtBlacklistRepository jwtBlacklistRepository;
 
+    @Autowired
+    private RevocationBus revocationBus;
+
+    @Autowired
+    private BlacklistBloomFilter blacklistBloomFilter;
+
+    @Autowired
+    private TokenHashMigrationService tokenHashMigrationService;
+
+    @Autowired
+    private ExpiredTokenPurgeService expiredTokenPurgeService;
+
     @Override
     @Transactional
     public JwtBlacklist blacklistToken(String token, LocalDateTime expiresAt) {
         logger.info("Blacklisting token that expires at: {}", expiresAt);
         JwtBlacklist blacklistEntry = new JwtBlacklist(token, expiresAt);
-        return jwtBlacklistRepository.save(blacklistEntry);
+        JwtBlacklist saved = jwtBlacklistRepository.save(blacklistEntry);
+        // Adds the token to every node's blacklist filter and drops its cached state
+        revocationBus.publish(RevocationEvent.tokenBlacklisted(token));
+        return saved;
     }
 
     @Override
@@ -36,13 +56,24 @@ public class JwtBlacklistServiceImpl implements JwtBlacklistService {
     public JwtBlacklist blacklistToken(String token, User user, String reason, LocalDateTime expiresAt) {
         logger.info("Blacklisting token for user: {} with reason: {}", user.getUsername(), reason);
         JwtBlacklist blacklistEntry = new JwtBlacklist(token, user, reason, expiresAt);
-        return jwtBlacklistRepository.save(blacklistEntry);
+        JwtBlacklist saved = jwtBlacklistRepository.save(blacklistEntry);
+        // Adds the token to every node's blacklist filter and drops its cached state
+        revocationBus.publish(RevocationEvent.tokenBlacklisted(token));
+        return saved;
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean isTokenBlacklisted(String token) {
-        return jwtBlacklistRepository.existsByToken(token);
+        // Only consult the table when the filter reports a possible hit
+        if (!blacklistBloomFilter.mightContain(token)) {
+            return false;
+        }
+        if (jwtBlacklistRepository.existsByTokenHash(TokenHashUtil.sha256(token))) {
+            return true;
+        }
+        // Entries created before the token_hash column may not be migrated yet
+        return !tokenHashMigrationService.isComplete() && jwtBlacklistRepository.existsByToken(token);
     }
 
     @Override
@@ -61,21 +92,10 @@ public class JwtBlacklistServiceImpl implements JwtBlacklistService {
     }
 
     @Override
-    @Transactional
     public int cleanupExpiredTokens() {
-        int count = jwtBlacklistRepository.deleteExpiredTokens(LocalDateTime.now());
+        // Purged in small chunks; the purge service also runs this on a short schedule
+        int count = expiredTokenPurgeService.purgeBlacklist();
         logger.info("Cleaned up {} expired tokens from blacklist", count);
         return count;
     }
-
-    /**
-     * Scheduled task to clean up expired tokens every day at 2 AM
-     */
-    @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
-    public void scheduledCleanup() {
-        logger.info("Running scheduled cleanup of expired tokens");
-        int deleted = cleanupExpiredTokens();
-        logger.info("Scheduled cleanup complete, removed {} expired tokens", deleted);
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package com.ali.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque position in an article feed: the sort key of the last article of a page.
+ * Feeds ordered by id carry only the id; feeds ordered by creation time carry the
+ * timestamp plus the id as a tie-breaker. Encoded as unpadded base64url.
+ */
+public final class ArticleCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final int MAX_ENCODED_LENGTH = 128;
+
+    private final LocalDateTime createDateTime;
+
+    private final long id;
+
+    private ArticleCursor(LocalDateTime createDateTime, long id) {
+        this.createDateTime = createDateTime;
+        this.id = id;
+    }
+
+    public static ArticleCursor ofId(long id) {
+        return new ArticleCursor(null, id);
+    }
+
+    public static ArticleCursor ofCreateDateTime(LocalDateTime createDateTime, long id) {
+        return new ArticleCursor(createDateTime, id);
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static ArticleCursor decode(String cursor) {
+        if (cursor.length() > MAX_ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        try {
+            String value = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                return ofId(Long.parseLong(value));
+            }
+            return ofCreateDateTime(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = createDateTime == null ? Long.toString(id) : createDateTime + "|" + id;
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean hasCreateDateTime() {
+        return createDateTime != null;
+    }
+
+    public LocalDateTime getCreateDateTime() {
+        return createDateTime;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ali.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 32-byte token digests.
+ * Never reports a false negative; false positives occur at roughly the configured rate
+ * as long as no more than the expected number of digests is inserted.
+ */
+public class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedInsertions number of digests the filter is sized for
+     * @param falsePositiveRate target false positive probability, e.g. 0.01
+     */
+    public TokenBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        int words = (int) Math.min(Integer.MAX_VALUE, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.numBits = (long) words * 64;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    /**
+     * Adds a SHA-256 digest to the filter
+     */
+    public void put(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            int word = (int) (index >>> 6);
+            long mask = 1L << (index & 63);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Returns false if the digest was definitely never added, true if it might have been
+     */
+    public boolean mightContain(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
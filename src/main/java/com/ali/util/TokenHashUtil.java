@@ -0,0 +1,68 @@
+package com.ali.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Utility class for deriving fixed-width digests from token strings
+ */
+public final class TokenHashUtil {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private TokenHashUtil() {
+    }
+
+    /**
+     * Computes the raw SHA-256 digest of a token
+     *
+     * @param token the token to hash
+     * @return the 32-byte digest
+     */
+    public static byte[] sha256(String token) {
+        MessageDigest digest = SHA_256.get();
+        digest.reset();
+        return digest.digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Computes the SHA-256 digest of a token as a lowercase hex string
+     *
+     * @param token the token to hash
+     * @return the 64-character hex digest
+     */
+    public static String sha256Hex(String token) {
+        byte[] bytes = sha256(token);
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            chars[i * 2] = HEX[v >>> 4];
+            chars[i * 2 + 1] = HEX[v & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes a hex digest produced by {@link #sha256Hex(String)}
+     *
+     * @param hex the lowercase hex digest
+     * @return the raw digest bytes
+     */
+    public static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ((Character.digit(hex.charAt(i * 2), 16) << 4)
+                    | Character.digit(hex.charAt(i * 2 + 1), 16));
+        }
+        return bytes;
+    }
+}
@@ -8,6 +8,7 @@ CREATE TABLE IF NOT EXISTS users (
   mfa_secret VARCHAR(255),
   active BOOLEAN DEFAULT TRUE,
   failed_login_attempts INT DEFAULT 0,
+  session_generation BIGINT NOT NULL DEFAULT 0,
   create_date_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   update_date_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
@@ -66,12 +67,14 @@ CREATE TABLE IF NOT EXISTS user_tokens (
   user_id BIGINT NOT NULL,
   username VARCHAR(50) NOT NULL,
   token VARCHAR(2000) NOT NULL,
+  token_hash VARBINARY(32),
   is_blacklisted BOOLEAN DEFAULT FALSE,
   ip_address VARCHAR(50),
   user_agent VARCHAR(500),
   created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
   expires_at TIMESTAMP NOT NULL,
   last_used_at TIMESTAMP,
+  session_generation BIGINT,
   FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
@@ -79,6 +82,7 @@ CREATE TABLE IF NOT EXISTS user_tokens (
 CREATE TABLE IF NOT EXISTS jwt_blacklist (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     token VARCHAR(512) NOT NULL,
+    token_hash VARBINARY(32),
     user_id BIGINT,
     reason VARCHAR(100),
     blacklisted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -87,5 +91,38 @@ CREATE TABLE IF NOT EXISTS jwt_blacklist (
 );
 
 -- Create indexes separately for H2 compatibility
-CREATE INDEX IF NOT EXISTS idx_token ON jwt_blacklist(token);
-CREATE INDEX IF NOT EXISTS idx_expires_at ON jwt_blacklist(expires_at); 
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_jwt_blacklist_token_hash ON jwt_blacklist(token_hash);
+CREATE INDEX IF NOT EXISTS idx_user_tokens_token_hash ON user_tokens(token_hash);
+CREATE INDEX IF NOT EXISTS idx_user_tokens_username ON user_tokens(username);
+CREATE INDEX IF NOT EXISTS idx_article_create_date_time_id ON article(create_date_time, id);
+CREATE INDEX IF NOT EXISTS idx_article_category_id_id ON article(category_id, id);
+CREATE INDEX IF NOT EXISTS idx_article_category_create_date_time_id ON article(category_id, create_date_time, id);
+CREATE INDEX IF NOT EXISTS idx_article_update_date_time ON article(update_date_time);
+CREATE INDEX IF NOT EXISTS idx_expires_at ON jwt_blacklist(expires_at); 
+
+-- Revocation events polled by every node when app.auth.revocation-bus=database
+CREATE TABLE IF NOT EXISTS revocation_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    username VARCHAR(255),
+    user_id BIGINT,
+    generation BIGINT,
+    token_hash VARCHAR(64),
+    origin_node VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS login_attempts (
+    username VARCHAR(64) PRIMARY KEY,
+    attempts INT NOT NULL,
+    window_start_ms BIGINT NOT NULL,
+    locked_until_ms BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS mfa_pending_sessions (
+    id_hash VARCHAR(64) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    username VARCHAR(64) NOT NULL,
+    expires_at_ms BIGINT NOT NULL,
+    failed_attempts INT NOT NULL DEFAULT 0
+);
@@ -0,0 +1,151 @@
+package com.ali.controller;
+
+import com.ali.entity.Article;
+import com.ali.entity.Category;
+import com.ali.enums.StatusEnum;
+import com.ali.repository.ArticleRepository;
+import com.ali.repository.CategoryRepository;
+import com.ali.service.ArticleCache;
+import com.ali.service.CategoryLookup;
+import com.ali.support.QueryCountAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of queries behind the article list endpoints, so a lazy association
+ * touched per row (N+1) fails the build instead of slowing production down.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.auth.password-hashing.bcrypt-cost=10",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+@WithMockUser
+class ArticleListQueryCountTest {
+
+    private static final int CATEGORIES = 3;
+
+    private static final int ARTICLES_PER_CATEGORY = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ArticleCache articleCache;
+
+    @Autowired
+    private CategoryLookup categoryLookup;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCountAssertions queries;
+
+    private Long categoryId;
+
+    private Long articleId;
+
+    @BeforeEach
+    void setUp() {
+        articleRepository.deleteAllInBatch();
+        categoryRepository.deleteAllInBatch();
+        articleCache.evictAll();
+        categoryLookup.invalidate();
+
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category category = new Category();
+            category.setTitle("Category " + c);
+            category = categoryRepository.save(category);
+            categoryId = category.getId();
+            for (int a = 0; a < ARTICLES_PER_CATEGORY; a++) {
+                Article article = new Article();
+                article.setTitle("Article " + c + "-" + a);
+                article.setContent("Content " + c + "-" + a);
+                article.setStatusEnum(StatusEnum.PUBLISHED);
+                article.setCategory(category);
+                articleId = articleRepository.save(article).getId();
+            }
+        }
+        queries = QueryCountAssertions.of(entityManagerFactory);
+    }
+
+    @Test
+    void listAllIsOneQuery() throws Exception {
+        queries.assertStatements(1, () -> mockMvc.perform(get("/api/articles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(CATEGORIES * ARTICLES_PER_CATEGORY)));
+    }
+
+    @Test
+    void pagedListsDoNotDependOnPageSize() throws Exception {
+        // Validator, page and count; the count is skipped when the page is also the last one
+        queries.assertStatements(3, () -> mockMvc.perform(get("/api/articles/paged?size=5"))
+                .andExpect(status().isOk()));
+        queries.assertStatementsAtMost(3, () -> mockMvc.perform(get("/api/articles/category/" + categoryId + "/paged"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(ARTICLES_PER_CATEGORY)));
+        queries.assertStatements(1, () -> mockMvc.perform(get("/api/articles/paged?size=20&count=false"))
+                .andExpect(status().isOk()));
+        queries.assertStatements(1, () -> mockMvc.perform(get("/api/articles/feed?size=20"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void listsNeverLoadCategories() throws Exception {
+        queries.assertNotLoaded(Category.class, () -> {
+            mockMvc.perform(get("/api/articles")).andExpect(status().isOk());
+            mockMvc.perform(get("/api/articles/paged")).andExpect(status().isOk());
+            mockMvc.perform(get("/api/articles/category/" + categoryId)).andExpect(status().isOk());
+        });
+    }
+
+    @Test
+    void singleArticleLeavesCategoryUnloaded() throws Exception {
+        queries.assertNotLoaded(Category.class, () -> mockMvc.perform(get("/api/articles/" + articleId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryId").value(categoryId)));
+        // Served from the article cache the second time
+        queries.assertStatements(0, () -> mockMvc.perform(get("/api/articles/" + articleId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void entityListsJoinTheCategory() throws Exception {
+        long statements = queries.count(() -> articleRepository.findAll()
+                .forEach(article -> article.getCategory().getTitle()));
+        assertEquals(1, statements);
+    }
+
+    @Test
+    void categoryListIsServedFromTheLookup() throws Exception {
+        mockMvc.perform(get("/api/categories")).andExpect(status().isOk());
+        queries.assertStatements(0, () -> mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(CATEGORIES)));
+    }
+}
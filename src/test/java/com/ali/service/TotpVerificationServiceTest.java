@@ -0,0 +1,138 @@
+package com.ali.service;
+
+import com.ali.entity.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the hand-rolled TOTP verification against RFC 6238 and pins its drift
+ * window and replay protection.
+ */
+class TotpVerificationServiceTest {
+
+    /** Base32 of the RFC 6238 Appendix B SHA1 seed "12345678901234567890" */
+    private static final String RFC_SECRET = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ";
+
+    private static final long STEP_MS = 30_000L;
+
+    /** Time step of T = 1111111109 in Appendix B, whose code is 07081804 */
+    private static final long STEP = 1111111109L / 30;
+
+    private static final String STEP_CODE = "081804";
+
+    /** The next step (T = 1111111111), whose code is 14050471 */
+    private static final String NEXT_STEP_CODE = "050471";
+
+    /**
+     * Appendix B lists 8-digit codes; a 6-digit code is their last six digits
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "59, 94287082",
+            "1111111109, 07081804",
+            "1111111111, 14050471",
+            "1234567890, 89005924",
+            "2000000000, 69279037",
+            "20000000000, 65353130"
+    })
+    void acceptsRfc6238Sha1Vectors(long epochSeconds, String rfcCode) {
+        TotpVerificationService service = serviceAt(epochSeconds * 1000);
+
+        assertTrue(service.verify(user(), rfcCode.substring(2)));
+    }
+
+    @Test
+    void rejectsWrongAndMalformedCodes() {
+        TotpVerificationService service = serviceAt(1111111109L * 1000);
+
+        assertFalse(service.verify(user(), "081805"));
+        assertFalse(service.verify(user(), "81804"));
+        assertFalse(service.verify(user(), "0818040"));
+        assertFalse(service.verify(user(), null));
+    }
+
+    @Test
+    void acceptsCodesTypedWithSeparators() {
+        TotpVerificationService service = serviceAt(1111111109L * 1000);
+
+        assertTrue(service.verify(user(), "081 804"));
+    }
+
+    @Test
+    void acceptsOneStepOfDriftEitherWay() {
+        // Clock at the last millisecond of the next step: the code is one step old
+        assertTrue(serviceAt(stepStart(STEP + 2) - 1).verify(user(), STEP_CODE));
+        // Clock at the first millisecond of the previous step: the code is one step ahead
+        assertTrue(serviceAt(stepStart(STEP - 1)).verify(user(), STEP_CODE));
+    }
+
+    @Test
+    void rejectsTwoStepsOfDrift() {
+        assertFalse(serviceAt(stepStart(STEP + 2)).verify(user(), STEP_CODE));
+        assertFalse(serviceAt(stepStart(STEP - 1) - 1).verify(user(), STEP_CODE));
+    }
+
+    @Test
+    void rejectsSecondUseOfAnAcceptedStep() {
+        TotpVerificationService service = serviceAt(stepStart(STEP));
+
+        assertTrue(service.verify(user(), STEP_CODE));
+        assertFalse(service.verify(user(), STEP_CODE));
+
+        // Still rejected once the clock moves on, while the code remains inside the window
+        service.setClock(fixedClock(stepStart(STEP + 1)));
+        assertFalse(service.verify(user(), STEP_CODE));
+    }
+
+    @Test
+    void rejectsAnOlderStepAfterANewerOneWasAccepted() {
+        TotpVerificationService service = serviceAt(stepStart(STEP + 1));
+
+        assertTrue(service.verify(user(), NEXT_STEP_CODE));
+        assertFalse(service.verify(user(), STEP_CODE));
+    }
+
+    @Test
+    void replayProtectionIsPerUser() {
+        TotpVerificationService service = serviceAt(stepStart(STEP));
+
+        assertTrue(service.verify(user(), STEP_CODE));
+        assertTrue(service.verify(user("other"), STEP_CODE));
+    }
+
+    private static TotpVerificationService serviceAt(long epochMillis) {
+        TotpVerificationService service = new TotpVerificationService();
+        ReflectionTestUtils.setField(service, "ttlMs", 300_000L);
+        ReflectionTestUtils.setField(service, "maxSize", 100);
+        service.setClock(fixedClock(epochMillis));
+        return service;
+    }
+
+    private static Clock fixedClock(long epochMillis) {
+        return Clock.fixed(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long stepStart(long step) {
+        return step * STEP_MS;
+    }
+
+    private static User user() {
+        return user("rfc6238");
+    }
+
+    private static User user(String username) {
+        User user = new User(username, username + "@example.com", "unused");
+        user.setMfaEnabled(true);
+        user.setMfaSecret(RFC_SECRET);
+        return user;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ali.support;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+
+/**
+ * Counts the JDBC statements Hibernate prepares while an action runs, so tests can pin
+ * the number of queries behind an endpoint and catch N+1 regressions. Statistics are
+ * global to the session factory: run the action on the test thread, not concurrently.
+ */
+public final class QueryCountAssertions {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private final Statistics statistics;
+
+    private QueryCountAssertions(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public static QueryCountAssertions of(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return new QueryCountAssertions(statistics);
+    }
+
+    /**
+     * @return the number of statements prepared while the action ran
+     */
+    public long count(Action action) throws Exception {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertStatements(long expected, Action action) throws Exception {
+        long actual = count(action);
+        if (actual != expected) {
+            throw new AssertionError("Expected " + expected + " statements but " + actual + " were prepared" + details());
+        }
+    }
+
+    public void assertStatementsAtMost(long max, Action action) throws Exception {
+        long actual = count(action);
+        if (actual > max) {
+            throw new AssertionError("Expected at most " + max + " statements but " + actual + " were prepared" + details());
+        }
+    }
+
+    /**
+     * Fails if the action loaded any entity of the given type, by query, join or lazy fetch
+     */
+    public void assertNotLoaded(Class<?> entityType, Action action) throws Exception {
+        statistics.clear();
+        action.run();
+        long loads = statistics.getEntityStatistics(entityType.getName()).getLoadCount();
+        if (loads > 0) {
+            throw new AssertionError("Expected no " + entityType.getSimpleName() + " loads but got " + loads + details());
+        }
+    }
+
+    private String details() {
+        return "; queries: " + Arrays.toString(statistics.getQueries())
+                + ", entity fetches: " + statistics.getEntityFetchCount()
+                + ", collection fetches: " + statistics.getCollectionFetchCount();
+    }
+}